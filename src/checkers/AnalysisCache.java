@@ -0,0 +1,176 @@
+package checkers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps the results of deep searches in a memory-mapped file, so they survive from one run to the next. Each entry
+ * holds a position's key, the depth it was searched to, the score and the best move.
+ *
+ * The file has a fixed number of slots in groups of four, a position only ever going in one group. When a group is
+ * full the entry used longest ago is replaced. Every slot carries a checksum written with it, so a slot left half
+ * written by a crash reads as empty rather than as a wrong answer.
+ */
+class AnalysisCache implements Closeable {
+
+    private static final int MAGIC = 0x43484b41; // "CHKA"
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 32;
+    private static final int WAYS = 4;
+
+    // Offsets within a slot.
+    private static final int KEY = 0;
+    private static final int SCORE = 8;
+    private static final int DEPTH = 12;
+    private static final int MOVE = 16;
+    private static final int STAMP = 20;
+    private static final int CHECK = 28;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int groups;
+    private long clock; // Increases with every use, so older uses have smaller stamps.
+
+    /**
+     * Opens the cache file, creating it if needed.
+     * @param path
+     * @param sizeMegabytes the size of a new file. An existing file keeps its size.
+     * @throws IOException if the file can't be opened or isn't a cache file.
+     */
+    AnalysisCache(Path path, int sizeMegabytes) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        boolean created = channel.size() == 0;
+        long size;
+        if (created) {
+            int slots = Integer.highestOneBit((int) Math.min((long) sizeMegabytes * 1024 * 1024 / SLOT_SIZE, 1 << 26));
+            size = HEADER_SIZE + (long) Math.max(slots, WAYS) * SLOT_SIZE;
+        } else {
+            size = channel.size();
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, (int) ((size - HEADER_SIZE) / SLOT_SIZE));
+        } else if (buffer.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(path + " is not an analysis cache");
+        }
+        groups = buffer.getInt(4) / WAYS;
+        clock = buffer.getLong(8);
+    }
+
+    /**
+     * Looks up a position.
+     * @param key see TranspositionTable.key
+     * @return the entry, or null if the position isn't stored.
+     */
+    synchronized Entry lookup(long key) {
+        int slot = find(key);
+        if (slot < 0) return null;
+        //Mark it as used now, so it is the last in its group to be replaced.
+        writeSlot(slot, key, buffer.getInt(slot + SCORE), buffer.getInt(slot + DEPTH), buffer.getInt(slot + MOVE));
+        return new Entry(buffer.getInt(slot + DEPTH), buffer.getInt(slot + SCORE), buffer.getInt(slot + MOVE));
+    }
+
+    /**
+     * Stores a result, unless the position is already stored from a deeper search.
+     * @param key see TranspositionTable.key
+     * @param depth
+     * @param score from B's point of view.
+     * @param origin co-ordinates (x,y) of the piece moved.
+     * @param destination co-ordinates (x,y) it moved to.
+     */
+    synchronized void store(long key, int depth, int score, int[] origin, int[] destination) {
+        int slot = find(key);
+        if (slot >= 0 && buffer.getInt(slot + DEPTH) > depth) return;
+        if (slot < 0) slot = leastRecentlyUsed(key);
+        int move = (origin[1] * 8 + origin[0]) << 8 | (destination[1] * 8 + destination[0]);
+        writeSlot(slot, key, score, depth, move);
+    }
+
+    private int find(long key) {
+        int first = firstSlot(key);
+        for (int i = 0; i < WAYS; i++) {
+            int slot = first + i * SLOT_SIZE;
+            if (isValid(slot) && buffer.getLong(slot + KEY) == key) return slot;
+        }
+        return -1;
+    }
+
+    private int leastRecentlyUsed(long key) {
+        int first = firstSlot(key);
+        int oldest = first;
+        for (int i = 0; i < WAYS; i++) {
+            int slot = first + i * SLOT_SIZE;
+            if (!isValid(slot)) return slot;
+            if (buffer.getLong(slot + STAMP) < buffer.getLong(oldest + STAMP)) oldest = slot;
+        }
+        return oldest;
+    }
+
+    private int firstSlot(long key) {
+        return HEADER_SIZE + (int) Math.floorMod(key ^ (key >>> 32), (long) groups) * WAYS * SLOT_SIZE;
+    }
+
+    private void writeSlot(int slot, long key, int score, int depth, int move) {
+        long stamp = ++clock;
+        //Clear the checksum first, so the slot reads as empty until it's completely written.
+        buffer.putInt(slot + CHECK, 0);
+        buffer.putLong(slot + KEY, key);
+        buffer.putInt(slot + SCORE, score);
+        buffer.putInt(slot + DEPTH, depth);
+        buffer.putInt(slot + MOVE, move);
+        buffer.putLong(slot + STAMP, stamp);
+        buffer.putInt(slot + CHECK, checksum(key, score, depth, move, stamp));
+        buffer.putLong(8, clock);
+    }
+
+    private boolean isValid(int slot) {
+        int check = buffer.getInt(slot + CHECK);
+        return check != 0 && check == checksum(buffer.getLong(slot + KEY), buffer.getInt(slot + SCORE),
+                buffer.getInt(slot + DEPTH), buffer.getInt(slot + MOVE), buffer.getLong(slot + STAMP));
+    }
+
+    private static int checksum(long key, int score, int depth, int move, long stamp) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h = (h ^ score) * 0x9E3779B97F4A7C15L;
+        h = (h ^ depth) * 0x9E3779B97F4A7C15L;
+        h = (h ^ move) * 0x9E3779B97F4A7C15L;
+        h = (h ^ stamp) * 0x9E3779B97F4A7C15L;
+        int check = (int) (h ^ (h >>> 32));
+        return check == 0 ? 1 : check;
+    }
+
+    /**
+     * Writes everything stored so far out to the disk.
+     */
+    synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    static final class Entry {
+        final int depth;
+        final int score; // From B's point of view.
+        final int[] origin;
+        final int[] destination;
+
+        private Entry(int depth, int score, int move) {
+            this.depth = depth;
+            this.score = score;
+            int from = move >>> 8 & 0xff;
+            int to = move & 0xff;
+            origin = new int[]{from % 8, from / 8};
+            destination = new int[]{to % 8, to / 8};
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyses a file of positions without the GUI and writes the AI's verdict on each one to another file.
+ *
+ * The input is either a PDN file, in which case every position of every game is analysed, or a text file with one
+ * position per line, written either as in Notation followed by the side to move or as a PDN FEN such as
+ * "B:W21,22:B1,2". Each position is played under the Variant of its size, and skipped if the evaluator can't score it.
+ * Positions are searched in parallel on a work-stealing pool. Only a few positions per thread are read ahead of the
+ * searches or finished and waiting to be written, so memory use stays the same however big the input is.
+ *
+ * Each output line is tab separated: the position's number in the input, the position, the side to move, the best
+ * move, its score from the side to move's point of view, the depth reached and the expected line.
+ *
+ * With -cache, positions searched deep enough in an earlier run are answered from the cache file, and new results
+ * are added to it. The cache is only used with the default evaluator.
+ *
+ * -evaluator chooses how positions are scored, see Evaluator.forName.
+ *
+ * Usage: BatchAnalysis [input] [output] [-depth n] [-movetime ms] [-threads n] [-cache file] [-evaluator name]
+ */
+public class BatchAnalysis {
+
+    private static final String END = "";
+
+    private final int depth;
+    private final long moveTime;
+    private final ForkJoinPool pool;
+    private final Semaphore inFlight; // Stops the reader getting far ahead of the searches and the writer.
+    private final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+    private final ThreadLocal<TranspositionTable> tables = ThreadLocal.withInitial(() -> new TranspositionTable(18));
+    private AnalysisCache analysisCache; // Shared by every thread, or null.
+    private Evaluator evaluator = new DefaultEvaluator();
+    private long count;
+
+    BatchAnalysis(int depth, long moveTime, int threads) {
+        this.depth = depth;
+        this.moveTime = moveTime;
+        pool = new ForkJoinPool(threads);
+        inFlight = new Semaphore(threads * 4);
+    }
+
+    /**
+     * Analyses every position in input, writing the results to output as they finish.
+     * @param input
+     * @param output
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    void run(Path input, Path output) throws IOException, InterruptedException {
+        Thread writer = new Thread(() -> writeResults(output), "batch-writer");
+        writer.start();
+        try {
+            if (input.toString().toLowerCase().endsWith(".pdn")) readGames(input);
+            else readPositions(input);
+        } finally {
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            results.put(END);
+            writer.join();
+        }
+    }
+
+    private void readGames(Path input) throws IOException, InterruptedException {
+        try (PdnReader reader = new PdnReader(input)) {
+            PdnGame game;
+            while ((game = reader.next()) != null) {
+                ArrayList<char[][]> states;
+                try {
+                    states = game.replay();
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping game: " + e.getMessage());
+                    continue;
+                }
+                PlayerStats player = game.getStartingPlayer();
+                for (char[][] state : states) {
+                    submit(state, player);
+                    player = player.getOpponent();
+                }
+            }
+        }
+    }
+
+    private void readPositions(Path input) throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                try {
+                    if (line.contains(":")) {
+                        submit(PdnGame.parseFen(line), Character.toUpperCase(line.charAt(0)) == 'W' ? PlayerStats.w : PlayerStats.b);
+                    } else {
+                        String[] fields = line.split("\\s+");
+                        submit(Notation.parsePosition(fields[0]), fields.length > 1 ? Notation.parseSide(fields[1]) : PlayerStats.b);
+                    }
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Skipping line: " + line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues one position, waiting first if too many are already queued, being searched or waiting to be written.
+     */
+    private void submit(char[][] state, PlayerStats toMove) throws InterruptedException {
+        if (!evaluator.supports(Variant.of(state))) {
+            throw new IllegalArgumentException("The evaluator can't score " + Variant.of(state));
+        }
+        long number = ++count;
+        inFlight.acquire();
+        pool.execute(() -> {
+            boolean queued = false;
+            try {
+                results.add(analyse(number, state, toMove));
+                queued = true;
+            } finally {
+                //Once the result is queued, the writer releases the permit when it has written it.
+                if (!queued) inFlight.release();
+            }
+        });
+    }
+
+    private String analyse(long number, char[][] state, PlayerStats toMove) {
+        Board board = new Board(depth, toMove.getOpponent(), Variant.of(state));
+        board.updateCurrentState(state);
+        board.setMoveTime(moveTime);
+        board.setVerbose(false);
+        board.setTranspositionTable(tables.get());
+        board.setAnalysisCache(analysisCache);
+        board.setEvaluator(evaluator);
+        char[][] best = board.getAIMoveFollowingRules(null);
+        String position = Notation.formatPosition(state);
+        if (best == null) return number + "\t" + position + "\t" + toMove + "\tnone";
+        int score = board.getBestScore() * (toMove == PlayerStats.b ? 1 : -1);
+        return number + "\t" + position + "\t" + toMove
+                + "\t" + board.describeLine(state, Collections.singletonList(best), toMove)
+                + "\t" + score + "\t" + board.getDepthReached()
+                + "\t" + board.describeLine(state, board.getPrincipalVariation(), toMove);
+    }
+
+    private void writeResults(Path output) {
+        try (BufferedWriter out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            String result;
+            while (!(result = results.take()).equals(END)) {
+                out.write(result);
+                out.newLine();
+                inFlight.release();
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't write results: " + e.getMessage());
+            discardResults();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Throws away the rest of the results, so the searches still finish once they can no longer be written.
+     */
+    private void discardResults() {
+        try {
+            while (!results.take().equals(END)) inFlight.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchAnalysis [input] [output] [-depth n] [-movetime ms] [-threads n] [-cache file]"
+                    + " [-evaluator name]");
+            System.exit(1);
+        }
+        int depth = 8;
+        long moveTime = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String cache = null;
+        Evaluator evaluator = new DefaultEvaluator();
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-depth")) depth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-movetime")) moveTime = Long.parseLong(args[++i]);
+            else if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-cache")) cache = args[++i];
+            else if (args[i].equals("-evaluator")) evaluator = Evaluator.forName(args[++i]);
+        }
+        BatchAnalysis analysis = new BatchAnalysis(depth, moveTime, threads);
+        analysis.evaluator = evaluator;
+        if (cache == null) {
+            analysis.run(Paths.get(args[0]), Paths.get(args[1]));
+            return;
+        }
+        try (AnalysisCache analysisCache = new AnalysisCache(Paths.get(cache), 256)) {
+            analysis.analysisCache = analysisCache;
+            analysis.run(Paths.get(args[0]), Paths.get(args[1]));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package checkers;
+
+/**
+ * Packs states into 64 bit masks, one bit per tile numbered y * 8 + x, so a feature can be worked out for every tile
+ * at once with shifts and masks and then counted with Long.bitCount. Packed states are stored STRIDE longs apart in a
+ * plain long[] buffer, so many of them can be scored in one tight loop.
+ */
+final class Bitboards {
+
+    static final int B_PAWNS = 0;
+    static final int B_KINGS = 1;
+    static final int W_PAWNS = 2;
+    static final int W_KINGS = 3;
+    static final int EMPTY = 4;
+    static final int STRIDE = 5;
+
+    static final long COLUMN_0 = 0x0101010101010101L;
+    static final long COLUMN_7 = COLUMN_0 << 7;
+
+    private Bitboards() {
+    }
+
+    /**
+     * Writes the masks of a state into buffer at offset.
+     * @param node
+     * @param buffer
+     * @param offset
+     */
+    static void pack(char[][] node, long[] buffer, int offset) {
+        long bPawns = 0, bKings = 0, wPawns = 0, wKings = 0, empty = 0;
+        for (int y = 0; y < 8; y++) {
+            char[] row = node[y];
+            for (int x = 0; x < 8; x++) {
+                long bit = 1L << (y * 8 + x);
+                switch (row[x]) {
+                    case 'b': bPawns |= bit; break;
+                    case 'B': bKings |= bit; break;
+                    case 'w': wPawns |= bit; break;
+                    case 'W': wKings |= bit; break;
+                    case 'O': empty |= bit; break;
+                }
+            }
+        }
+        buffer[offset + B_PAWNS] = bPawns;
+        buffer[offset + B_KINGS] = bKings;
+        buffer[offset + W_PAWNS] = wPawns;
+        buffer[offset + W_KINGS] = wKings;
+        buffer[offset + EMPTY] = empty;
+    }
+
+    /**
+     * For every tile, whether the tile at (x + dx, y + dy) is in mask. Tiles whose neighbour would be off the board
+     * are never set.
+     * @param mask
+     * @param dx -1 or 1
+     * @param dy -1 or 1
+     * @return long mask.
+     */
+    static long neighbours(long mask, int dx, int dy) {
+        int offset = dy * 8 + dx;
+        long shifted = offset > 0 ? mask >>> offset : mask << -offset;
+        return shifted & ~(dx > 0 ? COLUMN_7 : COLUMN_0);
+    }
+
+    /**
+     * The mask of one row.
+     * @param y
+     * @return long mask.
+     */
+    static long row(int y) {
+        return 0xffL << (y * 8);
+    }
+}
@@ -2,6 +2,8 @@ package checkers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 class Board {
     private char[][] board;
     private PlayerStats currentTurn;
@@ -10,11 +12,62 @@ class Board {
     private PlayerStats aiPlayer;
     static final int TILESIZE = 100;
     static final int COUNTERSIZE = TILESIZE /4;
+    private static final int INFINITY = 1000000; // Beyond any score, and safe to negate unlike Integer.MIN_VALUE.
+    private static final int ASPIRATION_WINDOW = 4; // About one checker either side of the last iteration's score.
+    private static final int LMR_MOVES = 3; // Quiet moves ordered after this many are searched a ply shallower first.
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int FUTILITY_MARGIN = 6; // More than a quiet move can change evaluateNode by.
     private int difficulty;
+    private int searchDepth; // The depth of the iteration currently being searched.
+    private int depthReached; // The deepest iteration completed by the last search.
+    private long moveTime; // Milliseconds allowed per move, 0 for a fixed depth search.
+    private long nodeLimit; // Nodes allowed per move, 0 for no limit.
+    private long deadline;
+    private long nodes; // Nodes visited by the last search.
+    private long cutoffs; // Beta cutoffs in the last search.
+    private volatile boolean stopRequested;
+    private boolean searchAborted;
+    private boolean verbose = true; // Whether the command line analysis is printed.
+    private SearchListener searchListener;
+    private TranspositionTable transpositionTable; // Optional, may be shared between boards.
+    private AnalysisCache analysisCache; // Optional, kept on disk between runs.
+    private boolean readOnlyCaches; // Whether the table and analysis cache are only looked in, never added to.
+    private SearchTracer tracer; // Optional, records the nodes searched.
+    private byte traceReason; // Why the node minimaxABNode just returned from ended, see SearchTracer.
+    private Evaluator evaluator = new DefaultEvaluator();
+    private boolean leafScoreReady; // Whether the next leaf has already been scored, by scoreLeaves.
+    private int leafScore;
+    private static final int DRAW_SCORE = 0;
+    private int drawPlyLimit = 80; // Turns in a row without a capture or a pawn move before the game is drawn.
+    private final ArrayList<Long> history = new ArrayList<>(); // Keys at the start of each turn since the last capture or pawn move.
+    private char[][] lastRecorded; // The state when history was last added to.
+    private final long[] nodeKeys = new long[2]; // The key and canonical key of the node being searched.
+    private long[] pathKeys; // Keys of the states on the line being searched, by depth.
+    private int[] pathReversible; // How many plies in a row, up to each depth, neither took a piece nor moved a pawn.
+    private int multiPV = 1; // How many root moves get an exact score and line.
+    private ArrayList<char[][]> excludedRootMoves; // Root moves already ranked by this multi-PV iteration.
+    private int rootAlpha = -INFINITY; // The window the root is searched in, for the AI, see setRootWindow.
+    private int rootBeta = INFINITY;
+    private static final int CACHE_MIN_DEPTH = 6; // Shallower searches are quicker to repeat than to store.
+    private char[][][][] pvTable; // Triangular table of the best line found from each depth of the current search.
+    private int[] pvLength;
+    private ArrayList<char[][]> principalVariation = new ArrayList<>(); // The root of the last search and its best line.
+    private List<char[][]> pvSeed; // The line to try first in this search.
+    private boolean followPV; // Whether the node being searched is on pvSeed.
+    private int[][] killers; // The last two quiet moves to cause a cutoff at each depth, see encodeHop.
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+    private final Variant variant;
+    private final MoveGenerator moveGenerator; // Makes the moves of variants searched a whole move at a time.
 
 
     Board(int difficulty, PlayerStats humanPlayer) {
+        this(difficulty, humanPlayer, Variant.ENGLISH);
+    }
 
+    Board(int difficulty, PlayerStats humanPlayer, Variant variant) {
+        this.variant = variant;
+        moveGenerator = new MoveGenerator(variant);
         initialiseBoard();
         this.difficulty = difficulty;
         this.humanPlayer = humanPlayer;
@@ -22,16 +75,15 @@ class Board {
         this.currentTurn = PlayerStats.b;
     }
     private void initialiseBoard() {
-        //Initial State
-        board = new char[][]{{'X', 'w', 'X', 'w', 'X', 'w', 'X', 'w'},
-                             {'w', 'X', 'w', 'X', 'w', 'X', 'w', 'X'},
-                             {'X', 'w', 'X', 'w', 'X', 'w', 'X', 'w'},
-                             {'O', 'X', 'O', 'X', 'O', 'X', 'O', 'X'},
-                             {'X', 'O', 'X', 'O', 'X', 'O', 'X', 'O'},
-                             {'b', 'X', 'b', 'X', 'b', 'X', 'b', 'X'},
-                             {'X', 'b', 'X', 'b', 'X', 'b', 'X', 'b'},
-                             {'b', 'X', 'b', 'X', 'b', 'X', 'b', 'X'}};
+        board = variant.initialState();
+    }
 
+    /**
+     * Returns a new copy of the starting position of English draughts.
+     * @return char[][] initial state representation.
+     */
+    static char[][] initialState() {
+        return Variant.ENGLISH.initialState();
     }
 
     /**
@@ -40,13 +92,119 @@ class Board {
      * @return char[][] state representation of best move.
      */
     char[][] getAIMove() {
-        //Remove all previous possible moves..
-        successorEvaluations = new ArrayList<>();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        //A position already searched at least this deep in an earlier run doesn't need searching again.
+        char[][] cached = lookupAnalysis();
+        if (cached != null) {
+            event.cached = true;
+            commitMoveEvent(event, cached);
+            return cached;
+        }
         //Perform minimax with alpha beta pruning.
-        minimaxAB(board, 0, aiPlayer, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        searchRoot();
         //Print out all the possible moves it could of made with statistics.
         commandLineAnalyseStates();
-        return returnBestMove();
+        rememberPrincipalVariation();
+        char[][] best = returnBestMove();
+        storeAnalysis(best);
+        commitMoveEvent(event, best);
+        return best;
+    }
+
+    /**
+     * Fills in and records a MoveEvent, if a flight recording wants it.
+     * @param event
+     * @param best the state after the chosen move, or null.
+     */
+    private void commitMoveEvent(MoveEvent event, char[][] best) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.depth = depthReached;
+        event.nodes = nodes;
+        event.cutoffs = cutoffs;
+        event.score = getBestScore();
+        if (best != null) {
+            event.move = Notation.formatMove(findCoordsOfOriginOfMove(board, best, aiPlayer),
+                    findCoordsOfResultOfMove(board, best, aiPlayer), variant.size);
+        }
+        event.commit();
+    }
+
+    /**
+     * Looks the current state up in the analysis cache. A stored move is only used if it was searched at least as
+     * deep as the difficulty level, or for a search limited by nodes if it was found with the same node budget, see
+     * analysisKey. It is still checked against the legal moves in case two positions share a key.
+     * The cache's moves are squares of the 8x8 board, so only English draughts is cached. Entries don't say how they
+     * were scored, so the cache is only used with the default evaluator, see Evaluator.isDefault.
+     * @return the state after the stored move, or null if the position has to be searched.
+     */
+    private char[][] lookupAnalysis() {
+        if (analysisCache == null || multiPV > 1 || variant != Variant.ENGLISH || !evaluator.isDefault()) return null;
+        long[] keys = new long[2];
+        TranspositionTable.keys(board, aiPlayer, keys);
+        long canonical = keys[1];
+        AnalysisCache.Entry entry = analysisCache.lookup(analysisKey(canonical));
+        //A node budget stops the search short of the difficulty level, at whatever depth the budget gets to.
+        if (entry == null || (!isNodeBudgeted() && entry.depth < difficulty)) return null;
+        //An entry stored for the mirror image has its move turned round and the score, from B's side, the other way.
+        boolean mirrored = canonical != keys[0];
+        int[] origin = mirrored ? TranspositionTable.mirrorSquare(entry.origin) : entry.origin;
+        int[] destination = mirrored ? TranspositionTable.mirrorSquare(entry.destination) : entry.destination;
+        int score = mirrored ? -entry.score : entry.score;
+        char[][] move = getLegalMoves(aiPlayer, false, null).get(origin[0], origin[1], destination[0], destination[1]);
+        if (move == null) return null;
+        successorEvaluations = new ArrayList<>();
+        successorEvaluations.add(new BoardAndScore(move, score));
+        depthReached = entry.depth;
+        nodes = 0;
+        rememberPrincipalVariation();
+        if (searchListener != null) searchListener.iterationComplete(entry.depth, score, 0, 0, move);
+        if (verbose) System.out.println("From analysis cache: depth " + entry.depth + ", score " + score);
+        return move;
+    }
+
+    /**
+     * Keeps the result of a deep enough search in the analysis cache.
+     * @param best the state after the chosen move.
+     */
+    private void storeAnalysis(char[][] best) {
+        if (analysisCache == null || readOnlyCaches || best == null || depthReached < CACHE_MIN_DEPTH
+                || variant != Variant.ENGLISH || !evaluator.isDefault()) return;
+        //Stopped early, it didn't find what its node budget would have.
+        if (stopRequested && isNodeBudgeted()) return;
+        long[] keys = new long[2];
+        TranspositionTable.keys(board, aiPlayer, keys);
+        long canonical = keys[1];
+        int[] origin = findCoordsOfOriginOfMove(board, best, aiPlayer);
+        int[] destination = findCoordsOfResultOfMove(board, best, aiPlayer);
+        //Stored as seen from the canonical side, see lookupAnalysis.
+        if (canonical != keys[0]) {
+            analysisCache.store(analysisKey(canonical), depthReached, -getBestScore(),
+                    TranspositionTable.mirrorSquare(origin), TranspositionTable.mirrorSquare(destination));
+        } else analysisCache.store(analysisKey(canonical), depthReached, getBestScore(), origin, destination);
+    }
+
+    /**
+     * Whether the search is limited by a node budget alone, so it plays the same move whatever the computer, however
+     * far short of the difficulty level it stops.
+     * @return boolean
+     */
+    private boolean isNodeBudgeted() {
+        return nodeLimit > 0 && moveTime == 0;
+    }
+
+    /**
+     * The key a position's result is kept under in the analysis cache. The result of a search limited by a node
+     * budget is what that budget found, so it is kept apart under a key that depends on the budget and the difficulty
+     * level too, and only answers searches with the same limits.
+     * @param canonical see TranspositionTable.keys
+     * @return long key.
+     */
+    private long analysisKey(long canonical) {
+        if (!isNodeBudgeted()) return canonical;
+        long limits = (nodeLimit * 0x9E3779B97F4A7C15L ^ difficulty) * 0xC2B2AE3D27D4EB4FL;
+        return canonical ^ limits;
     }
 
     /**
@@ -58,9 +216,11 @@ class Board {
      * @return char[][] state represntation of best move
      */
     char[][] getAIMoveMustAttack(boolean specificPiece, boolean isKing, int x, int y) {
-        successorEvaluations = new ArrayList<>();
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        event.mustAttack = true;
         //Perform minimax with alpha beta pruning.
-        minimaxAB(board, 0, aiPlayer, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        searchRoot();
         // Successor function specifically for making a secondary attack at (x,y).
         ArrayList<char[][]> validMoves = new ArrayList<>();
         if (specificPiece) {
@@ -85,22 +245,254 @@ class Board {
             }
         }
         commandLineAnalyseStates();
-        return returnBestMove();
+        rememberPrincipalVariation();
+        char[][] best = returnBestMove();
+        commitMoveEvent(event, best);
+        return best;
+    }
+
+    /**
+     * Gets the AI's move in the current state under the rules the GUI enforces: if it can attack it must, and a
+     * piece that has just attacked may only carry on attacking. Whole moves already follow the rules.
+     * @param attackingPiece co-ordinates (x,y) of the piece that has to carry on attacking, or null at the start of a turn.
+     * @return char[][] state representation of best move, null if there is none.
+     */
+    char[][] getAIMoveFollowingRules(int[] attackingPiece) {
+        if (variant.wholeMoves) return getAIMove();
+        if (attackingPiece != null) {
+            return getAIMoveMustAttack(true, board[attackingPiece[1]][attackingPiece[0]] == aiPlayer.getKingChar(),
+                    attackingPiece[0], attackingPiece[1]);
+        }
+        if (attackableMovePresent(board, aiPlayer)) return getAIMoveMustAttack(false, false, 0, 0);
+        return getAIMove();
+    }
+
+    /**
+     * Searches the current state for the AI, filling successorEvaluations with the root moves and their scores.
+     * The search deepens one ply at a time up to the difficulty level, each iteration trying the best line of the
+     * one before first, in a narrow aspiration window around its score. If the score falls outside the window the
+     * iteration is searched again with a full window. An iteration cut short by the clock, the node limit or
+     * stopSearch is thrown away in favour of the last completed one.
+     *
+     * In multi-PV mode successorEvaluations instead holds the best multiPV root moves, best first, each with its
+     * exact score and line.
+     */
+    private void searchRoot() {
+        long start = System.currentTimeMillis();
+        deadline = moveTime > 0 ? start + moveTime : 0;
+        nodes = 0;
+        cutoffs = 0;
+        depthReached = 0;
+        searchAborted = false;
+        stopRequested = false; // Left over from a stop that came after the last search had finished.
+        killers = new int[difficulty + 1][2];
+        for (int[] depthKillers : killers) Arrays.fill(depthKillers, -1);
+        ArrayList<BoardAndScore> completed = null;
+        int score = 0;
+        for (searchDepth = 1; searchDepth <= difficulty; searchDepth++) {
+            IterationEvent iteration = new IterationEvent();
+            iteration.begin();
+            if (multiPV > 1) {
+                ArrayList<BoardAndScore> ranked = searchMultiPV(completed == null ? new ArrayList<>() : completed);
+                if (!searchAborted) successorEvaluations = ranked;
+            } else {
+                score = searchIteration(searchDepth > 1, score);
+            }
+            iteration.end();
+            if (iteration.shouldCommit()) {
+                iteration.depth = searchDepth;
+                iteration.score = multiPV > 1 ? getBestScore() * (aiPlayer == PlayerStats.b ? 1 : -1) : score;
+                iteration.nodes = nodes;
+                iteration.cutoffs = cutoffs;
+                iteration.aborted = searchAborted;
+                iteration.commit();
+            }
+            if (searchAborted) break;
+            completed = successorEvaluations;
+            depthReached = searchDepth;
+            rememberPrincipalVariation();
+            if (searchListener != null) {
+                BoardAndScore best = returnBestEvaluation();
+                searchListener.iterationComplete(depthReached, best == null ? 0 : best.getScore(), nodes,
+                        System.currentTimeMillis() - start, best == null ? null : best.getState());
+            }
+            if (stopRequested || (deadline > 0 && System.currentTimeMillis() >= deadline)
+                    || (nodeLimit > 0 && nodes >= nodeLimit)) break;
+        }
+        if (completed != null) successorEvaluations = completed;
     }
 
+    /**
+     * Searches the root to searchDepth, in an aspiration window around the given score if narrow, widening the
+     * window on whichever side the score falls outside it, as far as the root window, see setRootWindow.
+     * @param narrow whether to start with a narrow window.
+     * @param centre the expected score, for the AI.
+     * @return the score for the AI.
+     */
+    private int searchIteration(boolean narrow, int centre) {
+        int alpha = narrow ? Math.max(centre - ASPIRATION_WINDOW, rootAlpha) : rootAlpha;
+        int beta = narrow ? Math.min(centre + ASPIRATION_WINDOW, rootBeta) : rootBeta;
+        if (alpha >= beta) {
+            alpha = rootAlpha;
+            beta = rootBeta;
+        }
+        while (true) {
+            successorEvaluations = new ArrayList<>();
+            pvTable = new char[searchDepth + 1][searchDepth + 1][][];
+            pvLength = new int[searchDepth + 1];
+            pathKeys = new long[searchDepth + 1];
+            pathReversible = new int[searchDepth + 1];
+            pathReversible[0] = rootReversiblePlies();
+            pvSeed = findPrincipalVariationSeed();
+            followPV = !pvSeed.isEmpty();
+            if (tracer != null) tracer.beginIteration(searchDepth);
+            int score = minimaxAB(board, 0, searchDepth, aiPlayer, alpha, beta);
+            if (searchAborted) return score;
+            if (score <= alpha && alpha > rootAlpha) alpha = rootAlpha;
+            else if (score >= beta && beta < rootBeta) beta = rootBeta;
+            else return score;
+        }
+    }
 
+    /**
+     * One multi-PV iteration. The best root move is found as usual, then it is left out and the search repeated to
+     * find the next best, and so on. Each search ends inside its window, so its score is exact, and it only has to
+     * prove the remaining moves no better than the one it finds, so it prunes like any other search. Each rank's
+     * window is centred on its score from the last iteration. Table entries only order moves here, so every score is
+     * exact at searchDepth.
+     * @param previous the last iteration's ranked moves, best first.
+     * @return up to multiPV moves with exact scores and lines, best first.
+     */
+    private ArrayList<BoardAndScore> searchMultiPV(ArrayList<BoardAndScore> previous) {
+        int sign = aiPlayer == PlayerStats.b ? 1 : -1;
+        ArrayList<BoardAndScore> ranked = new ArrayList<>();
+        excludedRootMoves = new ArrayList<>();
+        for (int rank = 0; rank < multiPV; rank++) {
+            boolean narrow = rank < previous.size();
+            int score = searchIteration(narrow, narrow ? previous.get(rank).getScore() * sign : 0);
+            //No line means every move has been ranked.
+            if (searchAborted || pvLength[0] == 0) break;
+            ArrayList<char[][]> line = new ArrayList<>();
+            for (int i = 0; i < pvLength[0]; i++) line.add(pvTable[0][i]);
+            ranked.add(new BoardAndScore(line.get(0), score * sign, line));
+            excludedRootMoves.add(line.get(0));
+        }
+        excludedRootMoves = null;
+        ranked.sort(Comparator.comparingInt(evaluation -> -evaluation.getScore() * sign));
+        return ranked;
+    }
+
+    /**
+     * If the current state is on the line expected by the last search, either because it's the same state being
+     * searched deeper or because the opponent played the expected reply, the rest of that line is worth trying first.
+     * @return the expected line from the current state, empty if the game went another way.
+     */
+    private List<char[][]> findPrincipalVariationSeed() {
+        for (int i = 0; i < principalVariation.size() - 1; i++) {
+            if (sameState(principalVariation.get(i), board)) {
+                return principalVariation.subList(i + 1, principalVariation.size());
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Keeps the line of the move returnBestMove would choose, from the current state, for seeding the next search.
+     */
+    private void rememberPrincipalVariation() {
+        ArrayList<char[][]> line = new ArrayList<>();
+        line.add(board);
+        BoardAndScore best = returnBestEvaluation();
+        if (best != null) line.addAll(best.getLine());
+        principalVariation = line;
+    }
+
+    /**
+     * Moves the child on the expected line to the front, so it is searched first.
+     * @param children
+     * @param depth
+     */
+    private void orderPrincipalVariation(ArrayList<char[][]> children, int depth) {
+        if (!followPV || depth >= pvSeed.size()) {
+            followPV = false;
+            return;
+        }
+        for (int i = 0; i < children.size(); i++) {
+            if (sameState(children.get(i), pvSeed.get(depth))) {
+                children.add(0, children.remove(i));
+                return;
+            }
+        }
+        followPV = false;
+    }
+
+    /**
+     * The child on the expected line, for a node made in stages, which has no list of children to look for it in.
+     * @param node
+     * @param player
+     * @param depth
+     * @return char[][] child, or null if the node isn't on the expected line.
+     */
+    private char[][] expectedMove(char[][] node, PlayerStats player, int depth) {
+        if (!followPV || depth >= pvSeed.size()) {
+            followPV = false;
+            return null;
+        }
+        char[][] expected = pvSeed.get(depth);
+        int move = encodeHop(node, expected);
+        if (move < 0 || !isLegalHop(node, player, move >> 6, move & 63)) {
+            followPV = false;
+            return null;
+        }
+        return expected;
+    }
+
+    /**
+     * Remembers a quiet move that caused a cutoff, to be tried early at the same depth elsewhere in the tree.
+     * @param depth
+     * @param move see encodeHop.
+     */
+    private void addKiller(int depth, int move) {
+        if (move < 0 || killers[depth][0] == move) return;
+        killers[depth][1] = killers[depth][0];
+        killers[depth][0] = move;
+    }
+
+    /**
+     * Records child as the best move at this depth, followed by the best line found below it.
+     * @param depth
+     * @param child
+     */
+    private void updatePrincipalVariation(int depth, char[][] child) {
+        pvTable[depth][depth] = child;
+        for (int i = depth + 1; i < pvLength[depth + 1]; i++) pvTable[depth][i] = pvTable[depth + 1][i];
+        pvLength[depth] = Math.max(pvLength[depth + 1], depth + 1);
+    }
+
+    /**
+     * Whether the search in progress has to give up, either because it was asked to stop, it ran out of time or it
+     * used up its nodes. The first iteration is always allowed to finish so there is a move to play.
+     * @return boolean
+     */
+    private boolean outOfTime() {
+        if (depthReached == 0) return false;
+        return stopRequested || (nodeLimit > 0 && nodes > nodeLimit)
+                || (deadline > 0 && (nodes & 1023) == 0 && System.currentTimeMillis() >= deadline);
+    }
 
     private void commandLineAnalyseStates() {
+        if (!verbose) return;
         System.out.println("My Turn!\nHmmm... Let's have a look here then..\n");
         for (BoardAndScore bs : successorEvaluations) {
             System.out.println("Well, I go can for:\n" + Arrays.deepToString(bs.getState()).replaceAll("],", "]\n") + "\nand I'll score: " + bs.getScore());
+            System.out.println("Expecting: " + describeLine(board, bs.getLine(), aiPlayer));
             System.out.println("Invulnerable Pieces: " + countCheckersInSafeTile(bs.getState(), getAiPlayer()));
             System.out.println("Vulnerable Pieces: " + countTotalVulnerableCheckers(bs.getState(), getAiPlayer()));
             System.out.println("Opponent Vulnerable Pieces: " + countTotalVulnerableCheckers(bs.getState(), getAiPlayer().getOpponent()));
             System.out.println("Kings On Board: " + countNumberOfKings(bs.getState(), getAiPlayer()));
             System.out.println("Enemy Kings: " + countNumberOfKings(bs.getState(), getAiPlayer().getOpponent()));
             System.out.println("Killed Enemies: " + Math.abs(countNumberOfPawns(bs.getState(), getAiPlayer().getOpponent()) +
-                    countNumberOfKings(bs.getState(), getAiPlayer().getOpponent()) - 12));
+                    countNumberOfKings(bs.getState(), getAiPlayer().getOpponent()) - variant.rows * variant.size / 2));
             System.out.println("\n");
         }
     }
@@ -110,6 +502,15 @@ class Board {
      * @return char[][] state representation of best move for AI.
      */
     private char[][] returnBestMove() {
+        BoardAndScore best = returnBestEvaluation();
+        return best == null ? null : best.getState();
+    }
+
+    /**
+     * Returns the root move returnBestMove would choose with its score and line.
+     * @return BoardAndScore, null if there are no moves.
+     */
+    private BoardAndScore returnBestEvaluation() {
         int max;
         int best = 0;
         if (aiPlayer == PlayerStats.b) {
@@ -130,7 +531,7 @@ class Board {
                 }
             }
         }
-        return successorEvaluations.isEmpty() ? null : successorEvaluations.get(best).getState();
+        return successorEvaluations.isEmpty() ? null : successorEvaluations.get(best);
     }
 
     /**
@@ -140,95 +541,295 @@ class Board {
      * @return
      */
     private int evaluateNode(char[][] node) {
-        int score = 0;
+        return evaluator.evaluate(node);
+    }
 
-        //3 points each for the enemy having vulnerable pieces.
-        score = score + countTotalVulnerableCheckers(node, PlayerStats.b.getOpponent())*3;
-        score = score - countTotalVulnerableCheckers(node, PlayerStats.w.getOpponent())*3;
-
-        //5 points for each king the player owns.
-        score = score + countNumberOfKings(node, PlayerStats.b)*5;
-        score = score - countNumberOfKings(node, PlayerStats.w)*5;
-
-        //3 points per enemy checker taken off the board.
-        score = score + Math.abs(countNumberOfPawns(node, PlayerStats.b.getOpponent()) +
-                countNumberOfKings(node, PlayerStats.b.getOpponent()) - 12) * 3;
-        score = score - Math.abs(countNumberOfPawns(node, PlayerStats.w.getOpponent()) +
-                countNumberOfKings(node, PlayerStats.w.getOpponent()) - 12) * 3;
-
-        //-1 Score for a vulnerable piece on the board.
-        score = score - countTotalVulnerableCheckers(node, PlayerStats.b);
-        score = score + countTotalVulnerableCheckers(node, PlayerStats.w);
-
-        //1 point for a checker on an edge tile where they cannot be attacked.
-        //I removed this scoring method as it didn't bring much to the performance, and sometimes led to too defensive
-        //plays by the AI and increasing it's rate of hiding in a corner moving backwards and forth to waste turns when
-        //It's a king.
-        //score = score + countCheckersInSafeTile(node, PlayerStats.b);
-        //score = score - countCheckersInSafeTile(node, PlayerStats.w);
+    /**
+     * Searches a node with minimaxABNode, recording it with the tracer if there is one.
+     */
+    private int minimaxAB(char[][] node, int depth, int depthLeft, PlayerStats player, int a, int b) {
+        if (tracer == null || !tracer.traces(depth)) return minimaxABNode(node, depth, depthLeft, player, a, b);
+        long nodesBefore = nodes;
+        int score = minimaxABNode(node, depth, depthLeft, player, a, b);
+        tracer.record(pathKeys[depth], depth, depthLeft, a, b, score, nodes - nodesBefore, traceReason, player);
         return score;
     }
 
     /**
-     * Minimax with Alpha Beta pruning.
+     * Minimax with Alpha Beta pruning, in negamax form: scores are from the point of view of the player to move, so
+     * both players maximise. It is a principal variation search, the first child gets the full window and the rest
+     * a null window that only proves they are no better, searched again in full if they turn out to be.
+     *
+     * Two optional selective search rules let it go deeper in the same time. Late move reductions search quiet moves
+     * that were ordered late a ply shallower, and search them again at full depth if they beat alpha after all.
+     * Futility pruning skips quiet moves one ply from the leaves when even a generous margin on top of the current
+     * evaluation can't reach alpha.
+     *
+     * A position that repeats one earlier in the line or in the game, or that comes after drawPlyLimit plies without a
+     * capture or a pawn move, is scored as a draw.
      * @param node the state.
      * @param depth initially 0, goes up to difficulty level.
+     * @param depthLeft how many more plies to search below this node.
      * @param player the current player
      * @param a alpha value
      * @param b beta value
-     * @return
+     * @return the score for player.
      */
-    private int minimaxAB(char[][] node, int depth, PlayerStats player, int a, int b) {
+    private int minimaxABNode(char[][] node, int depth, int depthLeft, PlayerStats player, int a, int b) {
+        nodes++;
+        pvLength[depth] = depth;
+        boolean scored = leafScoreReady;
+        leafScoreReady = false;
+        //If time is up, the score doesn't matter as the whole iteration is thrown away.
+        if (searchAborted || outOfTime()) {
+            searchAborted = true;
+            traceReason = SearchTracer.ABORTED;
+            return 0;
+        }
+
+        TranspositionTable.keys(node, player, nodeKeys);
+        long key = nodeKeys[0];
+        //Only an evaluator that scores both colours alike gives a position and its mirror image the same score.
+        long tableKey = evaluator.isColourSymmetric() ? nodeKeys[1] : key;
+        pathKeys[depth] = key;
+        //A position repeated on the way here, or after too long without progress, is a draw.
+        if (depth > 0 && isDrawInSearch(depth, key)) {
+            traceReason = SearchTracer.DRAW;
+            return DRAW_SCORE;
+        }
+
+        //If this position, or with a colour symmetric evaluator its mirror image, has been searched deep enough
+        //before, reuse what we learned. The root is always searched as it has to fill in successorEvaluations, and
+        //other nodes with an open window are too, as a score from the table leaves their expected line unfilled.
+        //Multi-PV takes no cutoffs at all, as a deeper entry would give its moves scores from different depths.
+        int alphaOrig = a;
+        int hashMove = -1;
+        if (transpositionTable != null) {
+            TranspositionTable.Entry entry = transpositionTable.probe(tableKey);
+            //The entry's move is for the canonical one of the position and its mirror image.
+            if (entry != null) hashMove = key == tableKey ? entry.move : TranspositionTable.mirrorMove(entry.move);
+            if (entry != null && depth > 0 && b - a == 1 && multiPV == 1 && entry.depth >= depthLeft) {
+                traceReason = SearchTracer.TABLE;
+                if (entry.flag == TranspositionTable.EXACT) return entry.score;
+                if (entry.flag == TranspositionTable.LOWER) a = Math.max(a, entry.score);
+                else b = Math.min(b, entry.score);
+                if (a >= b) return entry.score;
+            }
+        }
+        int betaOrig = b;
 
+        //B is the maximising player of evaluateNode, so its scores are flipped for W.
+        int sign = player == PlayerStats.b ? 1 : -1;
+        int bestScore;
+        char[][] bestChild = null;
+        byte reason = SearchTracer.WON;
         //If W wins, return a large score
-        if (hasWhiteWon(node)) return  -1000;
+        if (hasWhiteWon(node)) bestScore = -1000 * sign;
         //Same for B
-        if (hasBlackWon(node)) return 1000;
+        else if (hasBlackWon(node)) bestScore = 1000 * sign;
         //If we reach the maximum depth / difficulty level, we evaluate the node and return the value.
-        if (depth == difficulty) return evaluateNode(node);
-
-        //If maximising player..
-        if (player == PlayerStats.b) {
-            int bestScore = Integer.MIN_VALUE;
-            //For each child in successor function..
-            for (char[][] child: successorFunction(player, node, false)){
+        else if (depthLeft <= 0) {
+            bestScore = scored ? leafScore : evaluateNode(node) * sign;
+            reason = SearchTracer.LEAF;
+        }
+        else {
+            bestScore = -INFINITY;
+            MovePicker picker;
+            int[] leafScores = null;
+            boolean onPV;
+            //The root and nodes one ply from the leaves need every child anyway, the root to leave some out and fill in
+            //successorEvaluations, and the others to score them in one batch and search the best first. Elsewhere
+            //children are made in stages as they are needed, see MovePicker, which works in single hops.
+            if (depth == 0 || depthLeft == 1 || variant.wholeMoves) {
+                ArrayList<char[][]> children = successorFunction(player, node, false);
+                if (depth == 0 && excludedRootMoves != null) {
+                    children.removeIf(child -> excludedRootMoves.stream().anyMatch(move -> sameState(move, child)));
+                }
+                orderPrincipalVariation(children, depth);
+                onPV = followPV;
+                if (depthLeft == 1) leafScores = scoreLeaves(children, onPV ? 1 : 0, sign);
+                picker = new MovePicker(children);
+            } else {
+                char[][] pvMove = expectedMove(node, player, depth);
+                onPV = pvMove != null;
+                picker = new MovePicker(this, node, player, pvMove, hashMove, killers[depth]);
+            }
+            int opponentTokens = countPlayerTokens(node, player.getOpponent(), false, false);
+            int kings = countPlayerTokens(node, player, false, true);
+            //The margin is only worth working out one ply from the leaves.
+            int futilityScore = futilityPruning && depthLeft == 1 && depth > 0
+                    ? evaluateNode(node) * sign + FUTILITY_MARGIN : INFINITY;
+            int moveNumber = 0;
+            //For each child, in the order the picker makes them..
+            char[][] child;
+            while ((child = picker.next()) != null) {
+                moveNumber++;
+                //A quiet move neither takes a piece nor makes a king.
+                boolean quiet = countPlayerTokens(child, player.getOpponent(), false, false) == opponentTokens
+                        && countPlayerTokens(child, player, false, true) == kings;
+                if (quiet && moveNumber > 1 && futilityScore <= a) {
+                    bestScore = Math.max(bestScore, futilityScore);
+                    continue;
+                }
+                pathReversible[depth + 1] = isReversible(node, child) ? pathReversible[depth] + 1 : 0;
                 //Get score of the branch
-                int currentScore = minimaxAB(child, depth+1, PlayerStats.w,a,b);
-                //If current score is better than previous best score, replace it.
-                bestScore = Math.max(bestScore, currentScore);
+                if (leafScores != null) {
+                    leafScoreReady = true;
+                    leafScore = -leafScores[moveNumber - 1];
+                }
+                int currentScore;
+                if (moveNumber == 1) {
+                    currentScore = -minimaxAB(child, depth + 1, depthLeft - 1, player.getOpponent(), -b, -a);
+                } else {
+                    int reduction = lateMoveReductions && quiet && !onPV && moveNumber > LMR_MOVES
+                            && depthLeft >= LMR_MIN_DEPTH ? 1 : 0;
+                    currentScore = -minimaxAB(child, depth + 1, depthLeft - 1 - reduction, player.getOpponent(), -a - 1, -a);
+                    //A reduced move that beats alpha is checked again at full depth, still with a null window.
+                    if (reduction > 0 && currentScore > a) {
+                        currentScore = -minimaxAB(child, depth + 1, depthLeft - 1, player.getOpponent(), -a - 1, -a);
+                    }
+                    if (currentScore > a && currentScore < b) {
+                        leafScoreReady = leafScores != null;
+                        currentScore = -minimaxAB(child, depth + 1, depthLeft - 1, player.getOpponent(), -b, -a);
+                    }
+                }
+                followPV = false;
+                //If current score is better than previous best score, replace it, along with the best line.
+                if (currentScore > bestScore) {
+                    bestScore = currentScore;
+                    bestChild = child;
+                    updatePrincipalVariation(depth, child);
+                }
+                //If we're at depth 0, append to successorEvaluations the state with its score (from B's point of
+                //view, as before) and expected line. A move that cuts the root off is kept too, see setRootWindow.
+                if (depth == 0 ) successorEvaluations.add(new BoardAndScore(child,currentScore * sign, rootLine(child)));
                 //If current score is bigger than current alpha, set alpha to current score
                 a = Integer.max(a, currentScore);
                 //AB Pruning condition.
-                if (a >= b)  break;
-                //If we're at depth 0, append to successorEvaluations the state with its score.
-                if (depth == 0 ) successorEvaluations.add(new BoardAndScore(child,currentScore));
+                if (a >= b) {
+                    cutoffs++;
+                    if (quiet && depth > 0 && !variant.wholeMoves) addKiller(depth, encodeHop(node, child));
+                    break;
+                }
             }
-            return bestScore;
+            reason = bestScore <= alphaOrig ? SearchTracer.FAIL_LOW
+                    : bestScore >= betaOrig ? SearchTracer.FAIL_HIGH : SearchTracer.EXACT;
         }
-        //If minimising player..
-        else {
-            int bestScore = Integer.MAX_VALUE;
-            for (char[][] child: successorFunction(player, node, false)){
-                int currentScore = minimaxAB(child, depth +1, PlayerStats.b,a,b);
-                bestScore = Integer.min(bestScore, currentScore);
-                b = Integer.min(b, currentScore);
-                if (a >= b) break;
-                if (depth == 0) successorEvaluations.add(new BoardAndScore(child,currentScore));
+
+        //With root moves left out, the root's score isn't the position's score.
+        if (transpositionTable != null && !readOnlyCaches && !searchAborted && (depth > 0 || excludedRootMoves == null)) {
+            byte flag = bestScore <= alphaOrig ? TranspositionTable.UPPER
+                    : bestScore >= betaOrig ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            //Only a score above alpha says which move was best.
+            int move = bestChild != null && bestScore > alphaOrig && !variant.wholeMoves ? encodeHop(node, bestChild) : -1;
+            transpositionTable.store(tableKey, depthLeft, bestScore, flag,
+                    key == tableKey ? move : TranspositionTable.mirrorMove(move));
+        }
+        traceReason = searchAborted ? SearchTracer.ABORTED : reason;
+        return bestScore;
+    }
+
+    /**
+     * Whether the node at depth repeats a position from earlier in the line being searched or in the game, or ends a
+     * run of plies without progress long enough to draw. Only the positions since the last capture or pawn move are
+     * looked at, as no position before one can come round again.
+     * @param depth
+     * @param key
+     * @return boolean
+     */
+    private boolean isDrawInSearch(int depth, long key) {
+        int reversible = pathReversible[depth];
+        if (reversible >= drawPlyLimit) return true;
+        for (int i = depth - 2; i >= 0 && depth - i <= reversible; i -= 2) {
+            if (pathKeys[i] == key) return true;
+        }
+        if (reversible < depth) return false;
+        //The whole line is reversible, so positions from the game before the search can come round again too.
+        for (int i = 0; i < history.size() - 1; i++) {
+            if (history.get(i) == key) return true;
+        }
+        return false;
+    }
+
+    /**
+     * How many plies without progress the game has had up to the state being searched.
+     * @return int plies.
+     */
+    private int rootReversiblePlies() {
+        if (history.isEmpty() || history.get(history.size() - 1) != TranspositionTable.key(board, aiPlayer)) return 0;
+        return history.size() - 1;
+    }
+
+    /**
+     * Whether a move from one state to the other can be undone, i.e. it is a king moving one square. A capture or a
+     * pawn move changes the position for good.
+     * @param before
+     * @param after
+     * @return boolean
+     */
+    static boolean isReversible(char[][] before, char[][] after) {
+        int changed = 0;
+        for (int y = 0; y < before.length; y++) {
+            for (int x = 0; x < before.length; x++) {
+                if (before[y][x] == after[y][x]) continue;
+                if (before[y][x] == 'b' || before[y][x] == 'w' || after[y][x] == 'b' || after[y][x] == 'w') return false;
+                if (++changed > 2) return false;
             }
-            return bestScore;
         }
+        return changed == 2;
+    }
+
+    /**
+     * Scores all the children of a node one ply from the leaves with Evaluator.evaluateAll, then sorts them best
+     * first for the player to move, leaving any before from where they are.
+     * @param children
+     * @param from how many children at the front keep their place, i.e. the expected move.
+     * @param sign 1 if B is to move, -1 if W is.
+     * @return each child's score for the player to move, in the children's new order.
+     */
+    private int[] scoreLeaves(ArrayList<char[][]> children, int from, int sign) {
+        int[] scores = new int[children.size()];
+        evaluator.evaluateAll(children, scores);
+        for (int i = 0; i < scores.length; i++) scores[i] *= sign;
+        //Insertion sort, as there are rarely more than a dozen children and it keeps equal scores in order.
+        for (int i = from + 1; i < scores.length; i++) {
+            int score = scores[i];
+            char[][] child = children.get(i);
+            int j = i - 1;
+            while (j >= from && scores[j] < score) {
+                scores[j + 1] = scores[j];
+                children.set(j + 1, children.get(j));
+                j--;
+            }
+            scores[j + 1] = score;
+            children.set(j + 1, child);
+        }
+        return scores;
+    }
+
+    /**
+     * The line expected after playing child at the root, read from the PV table straight after searching it.
+     * @param child
+     * @return ArrayList of states starting with child.
+     */
+    private ArrayList<char[][]> rootLine(char[][] child) {
+        ArrayList<char[][]> line = new ArrayList<>();
+        line.add(child);
+        for (int i = 1; i < pvLength[1]; i++) line.add(pvTable[1][i]);
+        return line;
     }
 
     /**
      * Successor Function.
      * This returns an ArrayList of state representations for every possible passive and aggressive move available in the
-     * state for the given player.
+     * state for the given player. In variants searched a whole move at a time the moves come from MoveGenerator.
      * @param currentPlayer
      * @param currentState
      * @param attackOnly
      * @return ArrayList of char[][] representing available states.
      */
     ArrayList<char[][]> successorFunction(PlayerStats currentPlayer, char[][] currentState, boolean attackOnly) {
+        if (variant.wholeMoves) return moveGenerator.moves(currentState, currentPlayer, attackOnly);
 
         ArrayList<char[][]> possibleStates = new ArrayList<>();
         //If the user isn't forced to attack..
@@ -240,44 +841,7 @@ class Board {
                     //If the currentPlayer has a piece on this tile..
                     if (currentState[y][x] == currentPlayer.getKingChar() || currentState[y][x] == currentPlayer.getPawnChar()) {
                         boolean isKing = (currentState[y][x] == 'B' || currentState[y][x] == 'W');
-                        char[][] temp;
-                        //We check if they can move forward right at (x,y)
-                        if (canMoveForwardRight(currentState, currentPlayer, x, y)) {
-                            //Then we create a state where we move this piece forward and right...
-                            temp = deepClone(currentState);
-                            temp[y][x] = 'O';
-                            /*If the current counter makes it to the oppositions's kings row, it's a king! This method will
-                             * update a king if it wasn't a king before, or if it was already a king, will stay a king!
-                             */
-                            temp[y + currentPlayer.getForwardDirection()][x + 1] = (y + currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
-                                    ? currentPlayer.getKingChar() : currentState[y][x];
-                            //Append this state to the arrayList of possible states.
-                            possibleStates.add(temp);
-                        }
-                        if (canMoveBackwardRight(currentState, currentPlayer, isKing, x, y)) {
-                            temp = deepClone(currentState);
-                            temp[y][x] = 'O';
-
-                            temp[y - currentPlayer.getForwardDirection()][x + 1] = (y - currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
-                                    ? currentPlayer.getKingChar() : currentState[y][x];
-                            possibleStates.add(temp);
-                        }
-                        if (canMoveForwardLeft(currentState, currentPlayer, x, y)) {
-                            temp = deepClone(currentState);
-                            temp[y][x] = 'O';
-                            temp[y + currentPlayer.getForwardDirection()][x - 1] = (y + currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
-                                    ? currentPlayer.getKingChar() : currentState[y][x];
-
-                            possibleStates.add(temp);
-                        }
-                        if (canMoveBackwardLeft(currentState, currentPlayer, isKing, x, y)) {
-                            temp = deepClone(currentState);
-                            temp[y][x] = 'O';
-                            temp[y - currentPlayer.getForwardDirection()][x - 1] = (y - currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
-                                    ? currentPlayer.getKingChar() : currentState[y][x];
-
-                            possibleStates.add(temp);
-                        }
+                        addQuietMoves(currentState, currentPlayer, isKing, x, y, possibleStates);
 
                         //If there is an attack move present here, get all the possible attackmoves.
                         if (attackableMovePresent(currentState, currentPlayer, isKing, x, y)) {
@@ -305,6 +869,162 @@ class Board {
         return possibleStates;
     }
 
+    /**
+     * Adds the moves of the piece at (x,y) that aren't attacks, one step in each direction it can go, to moves.
+     * @param currentState
+     * @param currentPlayer
+     * @param isKing
+     * @param x
+     * @param y
+     * @param moves
+     */
+    private void addQuietMoves(char[][] currentState, PlayerStats currentPlayer, boolean isKing, int x, int y,
+                               ArrayList<char[][]> moves) {
+        char[][] temp;
+        //We check if they can move forward right at (x,y)
+        if (canMoveForwardRight(currentState, currentPlayer, x, y)) {
+            //Then we create a state where we move this piece forward and right...
+            temp = deepClone(currentState);
+            temp[y][x] = 'O';
+            /*If the current counter makes it to the oppositions's kings row, it's a king! This method will
+             * update a king if it wasn't a king before, or if it was already a king, will stay a king!
+             */
+            temp[y + currentPlayer.getForwardDirection()][x + 1] = (y + currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
+                    ? currentPlayer.getKingChar() : currentState[y][x];
+            //Append this state to the arrayList of possible states.
+            moves.add(temp);
+        }
+        if (canMoveBackwardRight(currentState, currentPlayer, isKing, x, y)) {
+            temp = deepClone(currentState);
+            temp[y][x] = 'O';
+
+            temp[y - currentPlayer.getForwardDirection()][x + 1] = (y - currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
+                    ? currentPlayer.getKingChar() : currentState[y][x];
+            moves.add(temp);
+        }
+        if (canMoveForwardLeft(currentState, currentPlayer, x, y)) {
+            temp = deepClone(currentState);
+            temp[y][x] = 'O';
+            temp[y + currentPlayer.getForwardDirection()][x - 1] = (y + currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
+                    ? currentPlayer.getKingChar() : currentState[y][x];
+
+            moves.add(temp);
+        }
+        if (canMoveBackwardLeft(currentState, currentPlayer, isKing, x, y)) {
+            temp = deepClone(currentState);
+            temp[y][x] = 'O';
+            temp[y - currentPlayer.getForwardDirection()][x - 1] = (y - currentPlayer.getForwardDirection() == currentPlayer.getOpponent().getKingsRow())
+                    ? currentPlayer.getKingChar() : currentState[y][x];
+
+            moves.add(temp);
+        }
+    }
+
+    /**
+     * Every move of the player that isn't an attack, in the same order as successorFunction.
+     * @param currentPlayer
+     * @param currentState
+     * @return ArrayList of char[][] representing available states.
+     */
+    ArrayList<char[][]> quietMoves(PlayerStats currentPlayer, char[][] currentState) {
+        ArrayList<char[][]> moves = new ArrayList<>();
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                if (currentState[y][x] == currentPlayer.getKingChar() || currentState[y][x] == currentPlayer.getPawnChar()) {
+                    addQuietMoves(currentState, currentPlayer, currentState[y][x] == currentPlayer.getKingChar(), x, y, moves);
+                }
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Whether the player has any move at all, worked out without making the states the moves lead to.
+     * @param node
+     * @param player
+     * @return boolean
+     */
+    private boolean hasAnyMove(char[][] node, PlayerStats player) {
+        if (variant.wholeMoves) return moveGenerator.hasMove(node, player);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                boolean isKing = node[y][x] == player.getKingChar();
+                if (!isKing && node[y][x] != player.getPawnChar()) continue;
+                for (int direction = 0; direction < (isKing ? 4 : 2); direction++) {
+                    if (canMove(node, player, x, y, direction) || canAttack(node, player, x, y, direction)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether moving the player's piece from one square to another is a legal hop, a step or a single jump. Moves
+     * remembered from other positions, such as the transposition table's, are checked with this before being played.
+     * @param state
+     * @param player
+     * @param from square, numbered y * 8 + x.
+     * @param to square, numbered y * 8 + x.
+     * @return boolean
+     */
+    boolean isLegalHop(char[][] state, PlayerStats player, int from, int to) {
+        int x = from & 7;
+        int y = from >> 3;
+        boolean isKing = state[y][x] == player.getKingChar();
+        if (!isKing && state[y][x] != player.getPawnChar()) return false;
+        for (int direction = 0; direction < (isKing ? 4 : 2); direction++) {
+            if (Diagonals.neighbour(player, x, y, direction) == to) return canMove(state, player, x, y, direction);
+            if (Diagonals.jump(player, x, y, direction) == to) return canAttack(state, player, x, y, direction);
+        }
+        return false;
+    }
+
+    /**
+     * The state after a legal hop, see isLegalHop. A jump takes the piece jumped over, and a pawn reaching the far row
+     * becomes a king.
+     * @param state
+     * @param from
+     * @param to
+     * @return char[][] state representation.
+     */
+    char[][] playHop(char[][] state, int from, int to) {
+        char[][] next = deepClone(state);
+        char piece = next[from >> 3][from & 7];
+        PlayerStats owner = Character.toLowerCase(piece) == PlayerStats.b.getPawnChar() ? PlayerStats.b : PlayerStats.w;
+        next[from >> 3][from & 7] = 'O';
+        if (Math.abs((to >> 3) - (from >> 3)) == 2) next[((to >> 3) + (from >> 3)) / 2][((to & 7) + (from & 7)) / 2] = 'O';
+        next[to >> 3][to & 7] = (to >> 3) == owner.getOpponent().getKingsRow() ? owner.getKingChar() : piece;
+        return next;
+    }
+
+    /**
+     * The hop from one state to the next, as from * 64 + to with squares numbered y * 8 + x.
+     * @param before
+     * @param after
+     * @return int move, or -1 if after doesn't follow from before by one hop.
+     */
+    static int encodeHop(char[][] before, char[][] after) {
+        int to = -1;
+        for (int y = 0; y < 8 && to < 0; y++) {
+            for (int x = (y + 1) % 2; x < 8; x += 2) {
+                if (before[y][x] == 'O' && after[y][x] != 'O') {
+                    to = y * 8 + x;
+                    break;
+                }
+            }
+        }
+        if (to < 0) return -1;
+        char mover = Character.toLowerCase(after[to >> 3][to & 7]);
+        for (int y = 0; y < 8; y++) {
+            for (int x = (y + 1) % 2; x < 8; x += 2) {
+                if (after[y][x] == 'O' && before[y][x] != 'O' && Character.toLowerCase(before[y][x]) == mover) {
+                    return (y * 8 + x) * 64 + to;
+                }
+            }
+        }
+        return -1;
+    }
+
     /**
      * Returns true is at x,y the currentPlayer can attack in any legal direction.
      * @param state
@@ -319,6 +1039,19 @@ class Board {
                 canAttackBackwardLeft(state,currentPlayer,isKing,x,y)|| canAttackBackwardRight(state,currentPlayer,isKing,x,y);
     }
 
+    /**
+     * Whether the piece at (x,y) has to carry on attacking after the hop that brought it there. Only when moves are
+     * played hop by hop, a whole move has already taken everything it can.
+     * @param state
+     * @param currentPlayer
+     * @param x
+     * @param y
+     * @return boolean
+     */
+    boolean canCarryOnAttacking(char[][] state, PlayerStats currentPlayer, int x, int y) {
+        return !variant.wholeMoves && attackableMovePresent(state, currentPlayer, Character.isUpperCase(state[y][x]), x, y);
+    }
+
     /**
      * Returns true is currentPlayer can make an attack anywhere on the board.
      * @param state
@@ -326,6 +1059,7 @@ class Board {
      * @return true if they can attack, false if not.
      */
     boolean attackableMovePresent(char[][] state, PlayerStats currentPlayer) {
+        if (variant.wholeMoves) return moveGenerator.canCapture(state, currentPlayer);
         for (int y = 0; y < 8; y++) {
             for (int x = 0; x < 8; x++) {
                 boolean isKing = false;
@@ -347,10 +1081,7 @@ class Board {
      * @return
      */
     private boolean canMoveForwardLeft(char[][] state, PlayerStats currentPlayer, int x, int y) {
-        if (y + currentPlayer.getForwardDirection() <= 7 && y + currentPlayer.getForwardDirection() >= 0 &&
-                x - 1 >= 0)
-        return state[y + currentPlayer.getForwardDirection()][x - 1] == 'O';
-        return false;
+        return canMove(state, currentPlayer, x, y, Diagonals.FORWARD_LEFT);
     }
     /**
      * Can the current Player move forwards and right.
@@ -361,13 +1092,7 @@ class Board {
      * @return
      */
     private boolean canMoveForwardRight(char[][] state, PlayerStats currentPlayer, int x, int y){
-        try {
-        if (y + currentPlayer.getForwardDirection() <= 7 && y + currentPlayer.getForwardDirection() >= 0 &&
-                x +1 <=7)
-        return state[y + currentPlayer.getForwardDirection()][x + 1] == 'O';
-
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return canMove(state, currentPlayer, x, y, Diagonals.FORWARD_RIGHT);
     }
 
     /**
@@ -379,12 +1104,7 @@ class Board {
      * @return
      */
     private boolean canMoveBackwardLeft(char[][] state, PlayerStats currentPlayer,boolean isKing, int x, int y){
-        try {
-            if ((y - currentPlayer.getForwardDirection() <= 7 && y - currentPlayer.getForwardDirection() >= 0 &&
-                    x -1 >= 0) && isKing)
-            return state[y - currentPlayer.getForwardDirection()][x - 1] == 'O';
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return isKing && canMove(state, currentPlayer, x, y, Diagonals.BACKWARD_LEFT);
     }
 
     /**
@@ -396,12 +1116,7 @@ class Board {
      * @return
      */
     private boolean canMoveBackwardRight(char[][] state, PlayerStats currentPlayer,boolean isKing, int x, int y){
-        try {
-            if ((y - currentPlayer.getForwardDirection() <= 7 && y - currentPlayer.getForwardDirection() >= 0 &&
-                    x +1 <=7) && isKing)
-            return state[y - currentPlayer.getForwardDirection()][x + 1] == 'O';
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return isKing && canMove(state, currentPlayer, x, y, Diagonals.BACKWARD_RIGHT);
     }
 
     /**
@@ -413,14 +1128,7 @@ class Board {
      * @return
      */
     private boolean canAttackForwardLeft(char[][] state, PlayerStats currentPlayer, int x, int y){
-        try {
-            if (y + currentPlayer.getForwardDirection() * 2 <= 7 && y + currentPlayer.getForwardDirection() * 2 >= 0 &&
-                    x - 2 >= 0)
-            return ((state[y + currentPlayer.getForwardDirection()][x - 1] == currentPlayer.getOpponent().getPawnChar() ||
-                    state[y + currentPlayer.getForwardDirection()][x - 1] == currentPlayer.getOpponent().getKingChar()) &&
-                    state[y + currentPlayer.getForwardDirection() * 2][x - 2] == 'O');
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return canAttack(state, currentPlayer, x, y, Diagonals.FORWARD_LEFT);
     }
 
     /**
@@ -432,14 +1140,7 @@ class Board {
      * @return
      */
     private boolean canAttackForwardRight(char[][] state, PlayerStats currentPlayer, int x, int y) {
-        try {
-            if (y + currentPlayer.getForwardDirection() * 2 <= 7 && y + currentPlayer.getForwardDirection() * 2 >= 0 &&
-                    x + 2 <= 7)
-            return ((state[y + currentPlayer.getForwardDirection()][x + 1] == currentPlayer.getOpponent().getPawnChar() ||
-                    state[y + currentPlayer.getForwardDirection()][x + 1] == currentPlayer.getOpponent().getKingChar()) &&
-                    state[y + currentPlayer.getForwardDirection() * 2][x + 2] == 'O');
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return canAttack(state, currentPlayer, x, y, Diagonals.FORWARD_RIGHT);
     }
 
     /**
@@ -451,14 +1152,7 @@ class Board {
      * @return
      */
     private boolean canAttackBackwardLeft(char[][] state, PlayerStats currentPlayer, boolean isKing, int x, int y) {
-        try {
-            if ((y - currentPlayer.getForwardDirection() * 2 <= 7 && y - currentPlayer.getForwardDirection() * 2 >= 0 &&
-                    x - 2 >= 0) && isKing)
-            return ((state[y - currentPlayer.getForwardDirection()][x - 1] == currentPlayer.getOpponent().getPawnChar() ||
-                    state[y - currentPlayer.getForwardDirection()][x - 1] == currentPlayer.getOpponent().getKingChar()) &&
-                    state[y - currentPlayer.getForwardDirection() * 2][x - 2] == 'O');
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return isKing && canAttack(state, currentPlayer, x, y, Diagonals.BACKWARD_LEFT);
     }
 
     /**
@@ -470,14 +1164,38 @@ class Board {
      * @return
      */
     private boolean canAttackBackwardRight(char[][] state, PlayerStats currentPlayer, boolean isKing, int x, int y) {
-        try {
-            if ((y - currentPlayer.getForwardDirection() * 2 <= 7 && y - currentPlayer.getForwardDirection() * 2 >= 0 &&
-                    x + 2 <= 7) && isKing)
-            return ((state[y - currentPlayer.getForwardDirection()][x + 1] == currentPlayer.getOpponent().getPawnChar() ||
-                    state[y - currentPlayer.getForwardDirection()][x + 1] == currentPlayer.getOpponent().getKingChar()) &&
-                    state[y - currentPlayer.getForwardDirection() * 2][x + 2] == 'O');
-        } catch (IndexOutOfBoundsException ignored) {}
-        return false;
+        return isKing && canAttack(state, currentPlayer, x, y, Diagonals.BACKWARD_RIGHT);
+    }
+
+    /**
+     * Whether the square next to (x,y) in the given direction is on the board and empty.
+     * @param state
+     * @param currentPlayer
+     * @param x
+     * @param y
+     * @param direction see Diagonals.
+     * @return boolean
+     */
+    private boolean canMove(char[][] state, PlayerStats currentPlayer, int x, int y, int direction) {
+        int to = Diagonals.neighbour(currentPlayer, x, y, direction);
+        return to != Diagonals.NONE && Diagonals.tile(state, to) == 'O';
+    }
+
+    /**
+     * Whether the square next to (x,y) in the given direction holds an opponent's piece, and the square beyond it is
+     * on the board and empty.
+     * @param state
+     * @param currentPlayer
+     * @param x
+     * @param y
+     * @param direction see Diagonals.
+     * @return boolean
+     */
+    private boolean canAttack(char[][] state, PlayerStats currentPlayer, int x, int y, int direction) {
+        int to = Diagonals.jump(currentPlayer, x, y, direction);
+        if (to == Diagonals.NONE || Diagonals.tile(state, to) != 'O') return false;
+        char over = Diagonals.tile(state, Diagonals.neighbour(currentPlayer, x, y, direction));
+        return over == currentPlayer.getOpponent().getPawnChar() || over == currentPlayer.getOpponent().getKingChar();
     }
 
     /**
@@ -497,50 +1215,38 @@ class Board {
         }
         else {
             char[][] temp;
-            try {
-                if (canAttackForwardRight(node,currentPlayer,x,y)) {
-                    temp = deepClone(node);
-                    temp[y][x] = 'O';
-                    temp[y + currentPlayer.getForwardDirection()][x + 1] = 'O';
-                    temp[y + currentPlayer.getForwardDirection() * 2][x + 2] = (y + currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
-                            ? currentPlayer.getKingChar() : node[y][x];
-                    attackMoves.add(temp);
-                }
-            } catch (IndexOutOfBoundsException ignored) {}
-            try {
-                if (isKing) {
-                    if ( canAttackBackwardRight(node,currentPlayer,true,x,y)) {
-                        temp = deepClone(node);
-                        temp[y][x] = 'O';
-                        temp[y - currentPlayer.getForwardDirection()][x + 1] = 'O';
-                        temp[y - currentPlayer.getForwardDirection() * 2][x + 2] = (y - currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
-                                ? currentPlayer.getKingChar() : node[y][x];
-                        attackMoves.add(temp);
-                    }
-                }
-            } catch (IndexOutOfBoundsException ignored) {}
-            try {
-                if (canAttackForwardLeft(node,currentPlayer,x,y)) {
-                    temp = deepClone(node);
-                    temp[y][x] = 'O';
-                    temp[y + currentPlayer.getForwardDirection()][x - 1] = 'O';
-                    temp[y + currentPlayer.getForwardDirection() * 2][x - 2] = (y + currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
-                            ? currentPlayer.getKingChar() : node[y][x];
-                    attackMoves.add(temp);
-                }
-            }catch (IndexOutOfBoundsException ignored) {}
-            try {
-                if (isKing) {
-                    if ( canAttackBackwardLeft(node,currentPlayer,true,x,y)) {
-                        temp = deepClone(node);
-                        temp[y][x] = 'O';
-                        temp[y - currentPlayer.getForwardDirection()][x - 1] = 'O';
-                        temp[y - currentPlayer.getForwardDirection() * 2][x - 2] = (y - currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
-                                ? currentPlayer.getKingChar() : node[y][x];
-                        attackMoves.add(temp);
-                    }
-                }
-            } catch (IndexOutOfBoundsException ignored) {}
+            if (canAttackForwardRight(node,currentPlayer,x,y)) {
+                temp = deepClone(node);
+                temp[y][x] = 'O';
+                temp[y + currentPlayer.getForwardDirection()][x + 1] = 'O';
+                temp[y + currentPlayer.getForwardDirection() * 2][x + 2] = (y + currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
+                        ? currentPlayer.getKingChar() : node[y][x];
+                attackMoves.add(temp);
+            }
+            if (canAttackBackwardRight(node,currentPlayer,isKing,x,y)) {
+                temp = deepClone(node);
+                temp[y][x] = 'O';
+                temp[y - currentPlayer.getForwardDirection()][x + 1] = 'O';
+                temp[y - currentPlayer.getForwardDirection() * 2][x + 2] = (y - currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
+                        ? currentPlayer.getKingChar() : node[y][x];
+                attackMoves.add(temp);
+            }
+            if (canAttackForwardLeft(node,currentPlayer,x,y)) {
+                temp = deepClone(node);
+                temp[y][x] = 'O';
+                temp[y + currentPlayer.getForwardDirection()][x - 1] = 'O';
+                temp[y + currentPlayer.getForwardDirection() * 2][x - 2] = (y + currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
+                        ? currentPlayer.getKingChar() : node[y][x];
+                attackMoves.add(temp);
+            }
+            if (canAttackBackwardLeft(node,currentPlayer,isKing,x,y)) {
+                temp = deepClone(node);
+                temp[y][x] = 'O';
+                temp[y - currentPlayer.getForwardDirection()][x - 1] = 'O';
+                temp[y - currentPlayer.getForwardDirection() * 2][x - 2] = (y - currentPlayer.getForwardDirection() * 2 == currentPlayer.getOpponent().getKingsRow())
+                        ? currentPlayer.getKingChar() : node[y][x];
+                attackMoves.add(temp);
+            }
         }
         return attackMoves;
     }
@@ -552,14 +1258,14 @@ class Board {
      */
     boolean hasBlackWon(char[][] node) {
         int whiteOnBoard = 0;
-        for (int x=0; x<8; x++){
-            for (int y=0; y<8;y++) {
+        for (int x=0; x<node.length; x++){
+            for (int y=0; y<node.length;y++) {
                 if (node[y][x] == PlayerStats.w.getPawnChar() || node[y][x] == PlayerStats.w.getKingChar()) {
                     whiteOnBoard ++;
                 }
             }
         }
-        return (whiteOnBoard ==0 || successorFunction(PlayerStats.w,node,false).isEmpty());
+        return (whiteOnBoard ==0 || !hasAnyMove(node, PlayerStats.w));
     }
 
     /**
@@ -569,14 +1275,14 @@ class Board {
      */
     boolean hasWhiteWon(char[][] node) {
         int blackOnBoard = 0;
-        for (int x=0; x<8; x++){
-            for (int y=0; y<8;y++) {
+        for (int x=0; x<node.length; x++){
+            for (int y=0; y<node.length;y++) {
                 if (node[y][x] == PlayerStats.b.getPawnChar() || node[y][x] == PlayerStats.b.getKingChar()) {
                     blackOnBoard ++;
                 }
             }
         }
-        return (blackOnBoard ==0 || successorFunction(PlayerStats.b,node,false).isEmpty());
+        return (blackOnBoard ==0 || !hasAnyMove(node, PlayerStats.b));
     }
 
     /**
@@ -588,42 +1294,64 @@ class Board {
      * @param y
      * @return true if can be attacked, false if not.
      */
-    private boolean isCheckerVulnerable(char[][] node, PlayerStats player, int x, int y) {
+    static boolean isCheckerVulnerable(char[][] node, PlayerStats player, int x, int y) {
+        if (node[y][x] != player.getKingChar() && node[y][x] != player.getPawnChar()) return false;
+        if (node.length != 8) return isCheckerVulnerableOffTables(node, player, x, y);
         //First Segment: Is there a space behind and to the left of player, and can an enemy checker move into it
         //Next move by attacking this current Checker.
-        if (node[y][x] != player.getKingChar() || node[y][x] != player.getPawnChar()) return false;
-        try {
-            if (node[y - player.getForwardDirection()][x-1] == 'O' &&
-                    (node[y+player.getForwardDirection()][x+1] == player.getOpponent().getKingChar() ||
-                            node[y+player.getForwardDirection()][x+1] == player.getOpponent().getPawnChar())) {
-                return true;
-            }
-        } catch (Exception ignored) {}
-
-        try {
-            if (node[y - player.getForwardDirection()][x+1] == 'O' &&
-                    (node[y+player.getForwardDirection()][x-1] == player.getOpponent().getKingChar() ||
-                            node[y+player.getForwardDirection()][x-1] == player.getOpponent().getPawnChar())) {
-                return true;
-            }
-        } catch (Exception ignored) {}
-
-        try {
-            if (node[y + player.getForwardDirection()][x-1] == 'O' &&
-                    node[y - player.getForwardDirection()][x+1] == player.getOpponent().getKingChar()) {
-                return true;
-            }
-        } catch (Exception ignored) {}
+        if (isEmptyAndAttackableFrom(node, player, x, y, Diagonals.BACKWARD_LEFT, Diagonals.FORWARD_RIGHT, false)) return true;
+        if (isEmptyAndAttackableFrom(node, player, x, y, Diagonals.BACKWARD_RIGHT, Diagonals.FORWARD_LEFT, false)) return true;
+        //Behind the checker, only a king can attack it, as it has to move backwards to do so.
+        if (isEmptyAndAttackableFrom(node, player, x, y, Diagonals.FORWARD_LEFT, Diagonals.BACKWARD_RIGHT, true)) return true;
+        return isEmptyAndAttackableFrom(node, player, x, y, Diagonals.FORWARD_RIGHT, Diagonals.BACKWARD_LEFT, true);
+    }
 
-        try {
-            if (node[y + player.getForwardDirection()][x + 1] == 'O' &&
-                    node[y - player.getForwardDirection()][x - 1] == player.getOpponent().getKingChar()) {
-                return true;
+    /**
+     * isCheckerVulnerable for boards Diagonals has no tables for, working the neighbours out from the co-ordinates.
+     * As on the 8x8 board only enemies next to the checker count, even though a flying king can take from further
+     * away. Where pawns take backwards, a pawn behind the checker is as much of a threat as one in front.
+     * @param node
+     * @param player
+     * @param x
+     * @param y
+     * @return boolean
+     */
+    private static boolean isCheckerVulnerableOffTables(char[][] node, PlayerStats player, int x, int y) {
+        Variant variant = Variant.of(node);
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                //An enemy at (x + dx, y + dy) jumps over the checker to (x - dx, y - dy).
+                if (variant.square(x + dx, y + dy) < 0 || variant.square(x - dx, y - dy) < 0) continue;
+                if (node[y - dy][x - dx] != 'O') continue;
+                char enemy = node[y + dy][x + dx];
+                boolean kingOnly = dy != player.getForwardDirection() && !variant.pawnsTakeBackwards;
+                if (enemy == player.getOpponent().getKingChar() || (!kingOnly && enemy == player.getOpponent().getPawnChar())) return true;
             }
-        } catch (Exception ignored) {}
+        }
         return false;
     }
 
+    /**
+     * Whether the square next to the checker at (x,y) in direction landing is empty, and the square in direction
+     * attacker holds an opponent's piece that could jump over the checker into it.
+     * @param node
+     * @param player the checker's owner.
+     * @param x
+     * @param y
+     * @param landing
+     * @param attacker the opposite direction to landing.
+     * @param kingOnly whether only an opponent's king could make the jump.
+     * @return boolean
+     */
+    private static boolean isEmptyAndAttackableFrom(char[][] node, PlayerStats player, int x, int y, int landing, int attacker,
+                                                    boolean kingOnly) {
+        int to = Diagonals.neighbour(player, x, y, landing);
+        int from = Diagonals.neighbour(player, x, y, attacker);
+        if (to == Diagonals.NONE || from == Diagonals.NONE || Diagonals.tile(node, to) != 'O') return false;
+        char enemy = Diagonals.tile(node, from);
+        return enemy == player.getOpponent().getKingChar() || (!kingOnly && enemy == player.getOpponent().getPawnChar());
+    }
+
     /**
      * The counts how many vulnerable checkers the player owns in the given node.
      * @param node
@@ -632,8 +1360,8 @@ class Board {
      */
     private int countTotalVulnerableCheckers(char[][] node, PlayerStats player) {
         int count = 0;
-        for (int y = 0; y < 8; y++) {
-            for (int x = 0; x < 8; x++) {
+        for (int y = 0; y < node.length; y++) {
+            for (int x = 0; x < node.length; x++) {
                 if (isCheckerVulnerable(node,player,x,y)) count++;
             }
         }
@@ -647,7 +1375,7 @@ class Board {
      * @return boolean
      */
     private boolean canThisPositionBeAttacked(int x, int y) {
-        return (x == 7 || x == 0 || y == 0 || y == 7);
+        return (x == variant.size - 1 || x == 0 || y == 0 || y == variant.size - 1);
     }
 
     /**
@@ -658,8 +1386,8 @@ class Board {
      */
     private int countCheckersInSafeTile(char[][] node, PlayerStats player) {
         int count = 0;
-        for (int y = 0; y < 8; y++) {
-            for (int x = 0; x < 8; x++) {
+        for (int y = 0; y < node.length; y++) {
+            for (int x = 0; x < node.length; x++) {
                 if (node[y][x] == player.getKingChar() || node[y][x] == player.getPawnChar()){
                     if(canThisPositionBeAttacked(x,y)) count++;
                 }
@@ -676,8 +1404,8 @@ class Board {
      */
     private int countNumberOfKings(char[][] node, PlayerStats player) {
         int count = 0;
-        for (int y = 0; y < 8 ; y++) {
-            for (int x = 0; x < 8; x++) {
+        for (int y = 0; y < node.length ; y++) {
+            for (int x = 0; x < node.length; x++) {
                 if (node[y][x] == player.getKingChar()) {
                     count++;
                 }
@@ -694,8 +1422,8 @@ class Board {
      */
     private int countNumberOfPawns(char[][] node, PlayerStats player) {
         int count = 0;
-        for (int y = 0; y < 8 ; y++) {
-            for (int x = 0; x < 8; x++) {
+        for (int y = 0; y < node.length ; y++) {
+            for (int x = 0; x < node.length; x++) {
                 if (node[y][x] == player.getPawnChar()) {
                     count++;
                 }
@@ -708,9 +1436,9 @@ class Board {
      * Updates the current state by replacing pawns on their enemies kings row for kings.
      */
     void updateBoardForNewKings() {
-        for (int x = 0; x < 8; x++) {
-            if (board[PlayerStats.w.getKingsRow()][x] == 'b') board[PlayerStats.w.getKingsRow()][x] = 'B';
-            if (board[PlayerStats.b.getKingsRow()][x] == 'w') board[PlayerStats.w.getKingsRow()][x] = 'W';
+        for (int x = 0; x < variant.size; x++) {
+            if (board[variant.kingsRow(PlayerStats.w)][x] == 'b') board[variant.kingsRow(PlayerStats.w)][x] = 'B';
+            if (board[variant.kingsRow(PlayerStats.b)][x] == 'w') board[variant.kingsRow(PlayerStats.b)][x] = 'W';
         }
     }
 
@@ -759,7 +1487,7 @@ class Board {
      * @return
      */
     boolean gameOver() {
-        return hasBlackWon(board) || hasWhiteWon(board);
+        return hasBlackWon(board) || hasWhiteWon(board) || isDraw();
     }
 
     /**
@@ -777,6 +1505,30 @@ class Board {
         return landingStates;
     }
 
+    /**
+     * Builds the index of every legal move the player has in the current state.
+     * @param player
+     * @param mustAttack whether only attacking moves are allowed.
+     * @param attackingPiece co-ordinates (x,y) of the only piece allowed to move, as it has to carry on attacking, or null.
+     * @return MoveIndex
+     */
+    MoveIndex getLegalMoves(PlayerStats player, boolean mustAttack, int[] attackingPiece) {
+        ArrayList<char[][]> states;
+        if (attackingPiece != null) {
+            states = getAllAttackableMoves(board, player, Character.isUpperCase(board[attackingPiece[1]][attackingPiece[0]]),
+                    attackingPiece[0], attackingPiece[1]);
+        } else {
+            states = successorFunction(player, board, mustAttack);
+        }
+        MoveIndex index = new MoveIndex(variant.size);
+        for (char[][] state : states) {
+            int[] origin = findCoordsOfOriginOfMove(board, state, player);
+            int[] destination = findCoordsOfResultOfMove(board, state, player);
+            index.add(origin[0], origin[1], destination[0], destination[1], state);
+        }
+        return index;
+    }
+
     /**
      * Helper function that returns the result of the moved piece between the start and finish board representations.
      * @param start
@@ -787,8 +1539,8 @@ class Board {
     int[] findCoordsOfResultOfMove(char[][] start, char[][] finish, PlayerStats currentPlayer) {
         int[] landingCoordinates = new int[2];
 
-        for (int y = 0; y < 8; y++) {
-            for (int x=0; x<8; x++) {
+        for (int y = 0; y < start.length; y++) {
+            for (int x=0; x<start.length; x++) {
                 if (start[y][x] != finish[y][x] && (finish[y][x] == currentPlayer.getPawnChar() || finish[y][x] == currentPlayer.getKingChar())) {
                     landingCoordinates[0] = x;
                     landingCoordinates[1] = y;
@@ -799,6 +1551,24 @@ class Board {
         return new int[2];
     }
 
+    /**
+     * Helper function that returns where the moved piece started between the start and finish board representations.
+     * @param start
+     * @param finish
+     * @param currentPlayer
+     * @return int[2] represententing co-ordinates x,y
+     */
+    int[] findCoordsOfOriginOfMove(char[][] start, char[][] finish, PlayerStats currentPlayer) {
+        for (int y = 0; y < start.length; y++) {
+            for (int x = 0; x < start.length; x++) {
+                if (finish[y][x] == 'O' && (start[y][x] == currentPlayer.getPawnChar() || start[y][x] == currentPlayer.getKingChar())) {
+                    return new int[]{x, y};
+                }
+            }
+        }
+        return new int[2];
+    }
+
     /**
      * Helper function for a deep comparision of 2D char arrays. If b matches a state in a, return true.
      * @param a
@@ -819,6 +1589,19 @@ class Board {
         return contains;
     }
 
+    /**
+     * Helper function for a deep comparison of two states.
+     * @param a
+     * @param b
+     * @return boolean
+     */
+    static boolean sameState(char[][] a, char[][] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (!Arrays.equals(a[i], b[i])) return false;
+        }
+        return true;
+    }
+
     /**
      * Helper function to see if the user's move is valid. Returns a boolean value of the answer.
      * @param state
@@ -846,8 +1629,8 @@ class Board {
     int countPlayerTokens(char[][] state, PlayerStats player, boolean justPawns, boolean justKings) {
         int count = 0;
         if (justKings && justPawns || (!justKings && !justPawns)) {
-            for (int y = 0; y < 8; y ++) {
-                for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < state.length; y ++) {
+                for (int x = 0; x < state.length; x++) {
                     if (state[y][x] == player.getKingChar() || state[y][x] == player.getPawnChar()) {
                         count++;
                     }
@@ -855,8 +1638,8 @@ class Board {
             }
         }
         else if (justPawns) {
-            for (int y = 0; y < 8; y ++) {
-                for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < state.length; y ++) {
+                for (int x = 0; x < state.length; x++) {
                     if (state[y][x] == player.getPawnChar()) {
                         count++;
                     }
@@ -864,8 +1647,8 @@ class Board {
             }
         }
         else {
-            for (int y = 0; y < 8; y ++) {
-                for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < state.length; y ++) {
+                for (int x = 0; x < state.length; x++) {
                     if (state[y][x] == player.getKingChar()) {
                         count++;
                     }
@@ -879,16 +1662,99 @@ class Board {
         return board;
     }
 
+    Variant getVariant() {
+        return variant;
+    }
+
     PlayerStats getCurrentTurn() {
         return currentTurn;
     }
 
+    /**
+     * The root moves of the last search with their scores from B's point of view. In multi-PV mode these are the best
+     * moves ranked best first, with exact scores and their lines.
+     * @return ArrayList of BoardAndScore
+     */
     ArrayList<BoardAndScore> getSuccessorEvaluations() {
         return successorEvaluations;
     }
 
+    /**
+     * The score of the move the last search chose, from B's point of view.
+     * @return int score, 0 if there was no move.
+     */
+    int getBestScore() {
+        BoardAndScore best = returnBestEvaluation();
+        return best == null ? 0 : best.getScore();
+    }
+
+    /**
+     * The line the AI expects from the current state after its last search, starting with its own move.
+     * @return List of states, empty if the game has gone another way.
+     */
+    List<char[][]> getPrincipalVariation() {
+        if (principalVariation.isEmpty() || !sameState(principalVariation.get(0), board)) return new ArrayList<>();
+        return principalVariation.subList(1, principalVariation.size());
+    }
+
+    /**
+     * Writes out a line of states as moves, see Notation, the players taking turns starting with firstPlayer.
+     * @param start the state before the line.
+     * @param line
+     * @param firstPlayer
+     * @return String of moves separated by spaces.
+     */
+    String describeLine(char[][] start, List<char[][]> line, PlayerStats firstPlayer) {
+        StringBuilder sb = new StringBuilder();
+        char[][] previous = start;
+        PlayerStats player = firstPlayer;
+        for (char[][] state : line) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(Notation.formatMove(findCoordsOfOriginOfMove(previous, state, player),
+                    findCoordsOfResultOfMove(previous, state, player), variant.size));
+            previous = state;
+            player = player.getOpponent();
+        }
+        return sb.toString();
+    }
+
     void changeTurn() {
         currentTurn = (currentTurn.equals(humanPlayer)) ? aiPlayer : humanPlayer;
+        recordPosition(currentTurn);
+    }
+
+    /**
+     * Adds the current state to the game's history, for spotting repetitions and games that make no progress. Called
+     * at the start of every turn, once the last turn's moves have all been made.
+     * @param toMove the player whose turn is starting.
+     */
+    void recordPosition(PlayerStats toMove) {
+        if (lastRecorded == null || !isReversible(lastRecorded, board)) history.clear();
+        history.add(TranspositionTable.key(board, toMove));
+        lastRecorded = deepClone(board);
+    }
+
+    /**
+     * Whether the game is drawn, either because the same position has come round for the third time with the same
+     * player to move, or because drawPlyLimit turns have gone by without a capture or a pawn move.
+     * @return boolean
+     */
+    boolean isDraw() {
+        if (history.isEmpty()) return false;
+        if (history.size() - 1 >= drawPlyLimit) return true;
+        long current = history.get(history.size() - 1);
+        int count = 0;
+        for (long key : history) {
+            if (key == current) count++;
+        }
+        return count >= 3;
+    }
+
+    /**
+     * @param drawPlyLimit turns in a row without a capture or a pawn move before the game is drawn.
+     */
+    void setDrawPlyLimit(int drawPlyLimit) {
+        this.drawPlyLimit = drawPlyLimit;
     }
 
     void updateCurrentState(char[][] state) {
@@ -900,6 +1766,134 @@ class Board {
         return aiPlayer;
     }
 
+    /**
+     * Lets one board search for either side, e.g. when it is reused between positions.
+     * @param aiPlayer
+     */
+    void setAiPlayer(PlayerStats aiPlayer) {
+        this.aiPlayer = aiPlayer;
+        this.humanPlayer = aiPlayer.getOpponent();
+    }
+
+    void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Searches the root in a window, for the AI, instead of a full one. A score at or below alpha is then only an
+     * upper bound on the position's score, and one at or above beta only a lower bound.
+     * @param alpha
+     * @param beta
+     */
+    void setRootWindow(int alpha, int beta) {
+        rootAlpha = Math.max(alpha, -INFINITY);
+        rootBeta = Math.min(beta, INFINITY);
+    }
+
+    /**
+     * Searches the root with a full window again.
+     */
+    void clearRootWindow() {
+        setRootWindow(-INFINITY, INFINITY);
+    }
+
+    /**
+     * Sets how long the AI may think per move. 0 searches straight to the difficulty level.
+     * @param moveTime milliseconds.
+     */
+    void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Sets how many nodes the AI may search per move. Unlike a time limit, how well it plays doesn't depend on how
+     * fast or busy the computer is.
+     * @param nodeLimit nodes, 0 searches straight to the difficulty level.
+     */
+    void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Asks a search running on another thread to finish with the deepest completed iteration.
+     */
+    void stopSearch() {
+        stopRequested = true;
+    }
+
+    /**
+     * Lets the search reuse results through the given table. Several boards may share one table.
+     * @param transpositionTable the table, or null to search without one.
+     */
+    void setTranspositionTable(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+    }
+
+    /**
+     * Lets getAIMove answer from, and add to, results kept from earlier runs.
+     * @param analysisCache the cache, or null to always search.
+     */
+    void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Lets the search look results up in the table and analysis cache without adding its own, for a search whose
+     * results depend on something, like the clock, that the other boards sharing them don't.
+     * @param readOnlyCaches
+     */
+    void setReadOnlyCaches(boolean readOnlyCaches) {
+        this.readOnlyCaches = readOnlyCaches;
+    }
+
+    /**
+     * Sets how the search scores the states at its leaves.
+     * @param evaluator see Evaluator.forName.
+     * @throws IllegalArgumentException if it can't score this board's variant.
+     */
+    void setEvaluator(Evaluator evaluator) {
+        if (!evaluator.supports(variant)) throw new IllegalArgumentException("The evaluator can't score " + variant);
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @param tracer records every node searched from now on, null to stop tracing. Closing it is up to the caller.
+     */
+    void setSearchTracer(SearchTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    /**
+     * @param multiPV how many of the best root moves to find exact scores and lines for. 1 searches as usual.
+     */
+    void setMultiPV(int multiPV) {
+        this.multiPV = multiPV;
+    }
+
+    void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    void setFutilityPruning(boolean futilityPruning) {
+        this.futilityPruning = futilityPruning;
+    }
+
+    void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    void setSearchListener(SearchListener searchListener) {
+        this.searchListener = searchListener;
+    }
+
+    int getDepthReached() {
+        return depthReached;
+    }
+
+    long getNodes() {
+        return nodes;
+    }
+
     private char[][] deepClone(char[][] state) {
         char[][] toClone = new char[state.length][];
         for (int i=0; i <state.length; i++) {
@@ -1,11 +1,20 @@
 package checkers;
 
+import java.util.ArrayList;
+
 public class BoardAndScore {
     private char[][] state;
     private int score;
+    private ArrayList<char[][]> line; // The states the search expects to follow, starting with this one.
     BoardAndScore(char[][] state, int score) {
+        this(state, score, new ArrayList<>());
+        line.add(state);
+    }
+
+    BoardAndScore(char[][] state, int score, ArrayList<char[][]> line) {
         this.score = score;
         this.state = state;
+        this.line = line;
     }
 
     public char[][] getState() {
@@ -15,4 +24,8 @@ public class BoardAndScore {
     public int getScore() {
         return score;
     }
+
+    public ArrayList<char[][]> getLine() {
+        return line;
+    }
 }
@@ -0,0 +1,75 @@
+package checkers;
+
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Circle;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * The GUI board. The tiles are created once for each size of board, and each render only redraws the tiles whose
+ * contents or hint changed since the last one. A hint is shown by turning the tiles a move goes from and to green.
+ */
+class BoardView extends GridPane {
+
+    private StackPane[][] tiles;
+    private char[][] renderedState; // What each tile currently shows, 0 before the first render.
+    private boolean[][] renderedHints;
+
+    /**
+     * @param size tiles along each side.
+     */
+    BoardView(int size) {
+        setSize(size);
+    }
+
+    /**
+     * Makes the board's tiles afresh if it isn't already the given size.
+     * @param size tiles along each side.
+     */
+    void setSize(int size) {
+        if (tiles != null && tiles.length == size) return;
+        getChildren().clear();
+        tiles = new StackPane[size][size];
+        renderedState = new char[size][size];
+        renderedHints = new boolean[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                tiles[y][x] = new StackPane();
+                add(tiles[y][x], x, y);
+            }
+        }
+    }
+
+    /**
+     * Brings the tiles up to date with the given state.
+     * @param state the board to show.
+     * @param hint the move to mark, as {originX, originY, destinationX, destinationY}, or null for none.
+     */
+    void render(char[][] state, int[] hint) {
+        for (int y = 0; y < tiles.length; y++) {
+            for (int x = 0; x < tiles.length; x++) {
+                boolean hinted = hint != null && ((hint[0] == x && hint[1] == y) || (hint[2] == x && hint[3] == y));
+                if (renderedState[y][x] != state[y][x] || renderedHints[y][x] != hinted) {
+                    drawTile(tiles[y][x], state[y][x], hinted);
+                    renderedState[y][x] = state[y][x];
+                    renderedHints[y][x] = hinted;
+                }
+            }
+        }
+    }
+
+    private void drawTile(StackPane tile, char contents, boolean hint) {
+        tile.getChildren().clear();
+        if (contents == 'X') {
+            tile.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BROWN));
+            return;
+        }
+        tile.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, hint ? Color.DARKGREEN : Color.BLACK));
+        if (contents == 'O') return;
+        PlayerStats owner = Character.toLowerCase(contents) == 'b' ? PlayerStats.b : PlayerStats.w;
+        tile.getChildren().add(new Circle(Board.COUNTERSIZE, owner.getColor()));
+        //Kings get a black dot in the middle.
+        if (Character.isUpperCase(contents)) tile.getChildren().add(new Circle(Board.COUNTERSIZE / 4, Color.BLACK));
+    }
+}
@@ -0,0 +1,154 @@
+package checkers;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * The AI's usual evaluation. Every feature is counted in a single pass over the board: pieces, kings, vulnerable
+ * pieces, pawns still guarding their own back row and pieces in the centre. Each feature is scored as B's count
+ * minus W's, times its weight. The same features score every Variant, the centre being the middle two rows' middle
+ * four tiles whatever the size of the board.
+ *
+ * The weights can be read from a properties file, any left out keeping their default, e.g.
+ *   piece=3
+ *   king=5
+ *   vulnerable=4
+ *   backRank=1
+ *   centre=1
+ *
+ * Batches are packed into Bitboards and scored with shifts and bit counts, working out each feature for the whole
+ * board at once. Single states are scored tile by tile. Both give the same scores. Bitboards
+ * only fit the 8x8 board, so batches from larger boards are scored one state at a time.
+ */
+class DefaultEvaluator implements Evaluator {
+
+    private final int piece; // Per piece on the board, i.e. per enemy piece taken.
+    private final int king; // Per king, on top of its piece weight.
+    private final int vulnerable; // Per enemy piece that could be taken next turn, and taken off for each own one.
+    private final int backRank; // Per pawn on its own back row, stopping the enemy making kings.
+    private final int centre; // Per piece on one of the four centre squares.
+
+    private static final long CENTRE = 0x3CL << 24 | 0x3CL << 32;
+
+    DefaultEvaluator() {
+        this(3, 5, 4, 1, 1);
+    }
+
+    DefaultEvaluator(int piece, int king, int vulnerable, int backRank, int centre) {
+        this.piece = piece;
+        this.king = king;
+        this.vulnerable = vulnerable;
+        this.backRank = backRank;
+        this.centre = centre;
+    }
+
+    /**
+     * Reads the weights from a properties file.
+     * @param path
+     * @return DefaultEvaluator
+     * @throws IOException if the file can't be read.
+     * @throws NumberFormatException if a weight isn't a whole number.
+     */
+    static DefaultEvaluator load(Path path) throws IOException {
+        Properties weights = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            weights.load(reader);
+        }
+        return new DefaultEvaluator(weight(weights, "piece", 3), weight(weights, "king", 5),
+                weight(weights, "vulnerable", 4), weight(weights, "backRank", 1), weight(weights, "centre", 1));
+    }
+
+    private static int weight(Properties weights, String name, int defaultWeight) {
+        String value = weights.getProperty(name);
+        return value == null ? defaultWeight : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public boolean isColourSymmetric() {
+        return true;
+    }
+
+    @Override
+    public boolean isDefault() {
+        return piece == 3 && king == 5 && vulnerable == 4 && backRank == 1 && centre == 1;
+    }
+
+    @Override
+    public int evaluate(char[][] node) {
+        Variant variant = Variant.of(node);
+        int middle = variant.size / 2;
+        int pieces = 0;
+        int kings = 0;
+        int vulnerablePieces = 0;
+        int backRankPawns = 0;
+        int centrePieces = 0;
+        for (int y = 0; y < variant.size; y++) {
+            for (int x = 0; x < variant.size; x++) {
+                char tile = node[y][x];
+                PlayerStats owner;
+                if (tile == 'b' || tile == 'B') owner = PlayerStats.b;
+                else if (tile == 'w' || tile == 'W') owner = PlayerStats.w;
+                else continue;
+                int sign = owner == PlayerStats.b ? 1 : -1;
+                pieces += sign;
+                if (tile == owner.getKingChar()) kings += sign;
+                else if (y == variant.kingsRow(owner)) backRankPawns += sign;
+                if (y >= middle - 1 && y <= middle && x >= middle - 2 && x <= middle + 1) centrePieces += sign;
+                if (Board.isCheckerVulnerable(node, owner, x, y)) vulnerablePieces += sign;
+            }
+        }
+        return pieces * piece + kings * king - vulnerablePieces * vulnerable + backRankPawns * backRank
+                + centrePieces * centre;
+    }
+
+    @Override
+    public void evaluateAll(List<char[][]> nodes, int[] scores) {
+        if (!nodes.isEmpty() && nodes.get(0).length != 8) {
+            Evaluator.super.evaluateAll(nodes, scores);
+            return;
+        }
+        long[] packed = new long[nodes.size() * Bitboards.STRIDE];
+        for (int i = 0; i < nodes.size(); i++) Bitboards.pack(nodes.get(i), packed, i * Bitboards.STRIDE);
+        for (int i = 0; i < nodes.size(); i++) scores[i] = evaluatePacked(packed, i * Bitboards.STRIDE);
+    }
+
+    private int evaluatePacked(long[] packed, int offset) {
+        long bPawns = packed[offset + Bitboards.B_PAWNS];
+        long bKings = packed[offset + Bitboards.B_KINGS];
+        long wPawns = packed[offset + Bitboards.W_PAWNS];
+        long wKings = packed[offset + Bitboards.W_KINGS];
+        long empty = packed[offset + Bitboards.EMPTY];
+        long bPieces = bPawns | bKings;
+        long wPieces = wPawns | wKings;
+        int f = PlayerStats.b.getForwardDirection();
+        int pieces = Long.bitCount(bPieces) - Long.bitCount(wPieces);
+        int kings = Long.bitCount(bKings) - Long.bitCount(wKings);
+        int vulnerablePieces = Long.bitCount(bPieces & attackable(empty, wPieces, wKings, f))
+                - Long.bitCount(wPieces & attackable(empty, bPieces, bKings, -f));
+        int backRankPawns = Long.bitCount(bPawns & Bitboards.row(PlayerStats.b.getKingsRow()))
+                - Long.bitCount(wPawns & Bitboards.row(PlayerStats.w.getKingsRow()));
+        int centrePieces = Long.bitCount(bPieces & CENTRE) - Long.bitCount(wPieces & CENTRE);
+        return pieces * piece + kings * king - vulnerablePieces * vulnerable + backRankPawns * backRank
+                + centrePieces * centre;
+    }
+
+    /**
+     * The tiles where a piece moving in direction forward could be taken next turn, the same test as
+     * Board.isCheckerVulnerable for every tile at once.
+     * @param empty
+     * @param enemies
+     * @param enemyKings
+     * @param forward the forward direction of the pieces that could be taken.
+     * @return long mask.
+     */
+    private static long attackable(long empty, long enemies, long enemyKings, int forward) {
+        return Bitboards.neighbours(empty, -1, -forward) & Bitboards.neighbours(enemies, 1, forward)
+                | Bitboards.neighbours(empty, 1, -forward) & Bitboards.neighbours(enemies, -1, forward)
+                | Bitboards.neighbours(empty, -1, forward) & Bitboards.neighbours(enemyKings, 1, -forward)
+                | Bitboards.neighbours(empty, 1, forward) & Bitboards.neighbours(enemyKings, -1, -forward);
+    }
+}
@@ -0,0 +1,76 @@
+package checkers;
+
+/**
+ * Lookup tables of the diagonal neighbours of every square, and of the square a jump over each neighbour lands on,
+ * built once when the class is loaded. Directions are from a player's own point of view, so forwards for W is down
+ * the char[][] board and forwards for B is up it. Squares are numbered y * 8 + x, and NONE means the move would leave
+ * the board.
+ */
+final class Diagonals {
+
+    static final int FORWARD_LEFT = 0;
+    static final int FORWARD_RIGHT = 1;
+    static final int BACKWARD_LEFT = 2;
+    static final int BACKWARD_RIGHT = 3;
+    static final int NONE = -1;
+
+    private static final int[][][] NEIGHBOURS = new int[PlayerStats.values().length][64][4];
+    private static final int[][][] JUMPS = new int[PlayerStats.values().length][64][4];
+
+    static {
+        for (PlayerStats player : PlayerStats.values()) {
+            int forward = player.getForwardDirection();
+            int[] dx = {-1, 1, -1, 1};
+            int[] dy = {forward, forward, -forward, -forward};
+            for (int y = 0; y < 8; y++) {
+                for (int x = 0; x < 8; x++) {
+                    for (int direction = 0; direction < 4; direction++) {
+                        NEIGHBOURS[player.ordinal()][y * 8 + x][direction] = square(x + dx[direction], y + dy[direction]);
+                        JUMPS[player.ordinal()][y * 8 + x][direction] = square(x + 2 * dx[direction], y + 2 * dy[direction]);
+                    }
+                }
+            }
+        }
+    }
+
+    private Diagonals() {
+    }
+
+    private static int square(int x, int y) {
+        return x >= 0 && x < 8 && y >= 0 && y < 8 ? y * 8 + x : NONE;
+    }
+
+    /**
+     * The square next to (x,y) in the given direction.
+     * @param player whose forwards is meant.
+     * @param x
+     * @param y
+     * @param direction FORWARD_LEFT, FORWARD_RIGHT, BACKWARD_LEFT or BACKWARD_RIGHT.
+     * @return int square, or NONE.
+     */
+    static int neighbour(PlayerStats player, int x, int y, int direction) {
+        return NEIGHBOURS[player.ordinal()][y * 8 + x][direction];
+    }
+
+    /**
+     * The square a piece on (x,y) lands on when it jumps in the given direction.
+     * @param player whose forwards is meant.
+     * @param x
+     * @param y
+     * @param direction FORWARD_LEFT, FORWARD_RIGHT, BACKWARD_LEFT or BACKWARD_RIGHT.
+     * @return int square, or NONE.
+     */
+    static int jump(PlayerStats player, int x, int y, int direction) {
+        return JUMPS[player.ordinal()][y * 8 + x][direction];
+    }
+
+    /**
+     * What is on a square, for a square given by the tables.
+     * @param state
+     * @param square
+     * @return char tile.
+     */
+    static char tile(char[][] state, int square) {
+        return state[square >> 3][square & 7];
+    }
+}
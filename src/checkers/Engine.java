@@ -0,0 +1,353 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the AI without the GUI, driven by a line protocol on stdin with replies on stdout. Commands are read on the
+ * main thread while the search runs on its own thread, so "stop" and "isready" are answered during a search.
+ *
+ * Commands:
+ *   position startpos | position [position] [b|w] [from square]
+ *   depth [n]          maximum search depth
+ *   movetime [ms]      time per move, 0 for a fixed depth
+ *   nodes [n]          nodes per move, 0 for no limit
+ *   go                 search, replies with info lines ending in the expected line (pv), then "bestmove [move]"
+ *                      or "bestmove none"
+ *   stop               finish the search in progress with its deepest completed iteration
+ *   setoption [name] [on|off]   turn a search option on or off: lmr, futility
+ *   setoption evaluator [name]  default, material, or the path of a weights file, see Evaluator.forName
+ *   setoption multipv [n]       report exact scores and lines for the best n moves, one "info ... multipv k" line each
+ *   setoption variant [name]    english or international, starting a new game, see Variant
+ *   trace [file] [sample n] [plies n] | trace off
+ *                      record the nodes of every search from now on in file, see SearchTracer and TraceReader
+ *   bench [depth]      search a fixed set of positions with each combination of options, one line per combination
+ *   perft [depth]      count the lines of whole moves depth plies long from the current position, see MoveGenerator
+ *   isready            replies "readyok"
+ *   newgame            back to the starting position, refused while searching
+ *   quit
+ * See Notation for how positions and moves are written.
+ *
+ * Usage: Engine [-cache file]   keeps deep search results in file, so later runs can answer from it.
+ */
+public class Engine {
+
+    private final PrintStream out;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "engine-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private char[][] position;
+    private PlayerStats sideToMove;
+    private int[] continueFrom; // The piece that must carry on attacking, or null.
+    private int depth = 8;
+    private long moveTime = 0;
+    private long nodeLimit = 0;
+    private Board board; // Kept between searches, so each one can start from what the last one learned.
+    private final TranspositionTable transpositionTable = new TranspositionTable(20);
+    private volatile Board searching; // The board being searched, null when idle.
+    private volatile boolean stopped; // Whether the search in progress has been told to stop.
+    private AnalysisCache analysisCache;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = true;
+    private Evaluator evaluator = new DefaultEvaluator();
+    private int multiPV = 1;
+    private SearchTracer tracer; // Records the searches, or null.
+    private Variant variant = Variant.ENGLISH;
+
+    // Positions for bench, the starting position, two openings, a middlegame and a king ending.
+    private static final String[][] BENCH_POSITIONS = {
+            {"XwXwXwXw/wXwXwXwX/XwXwXwXw/OXOXOXOX/XOXOXOXO/bXbXbXbX/XbXbXbXb/bXbXbXbX", "b"},
+            {"XwXwXwXw/wXwXwXwX/XOXwXwXw/OXwXOXOX/XOXbXOXO/bXOXbXbX/XbXbXbXb/bXbXbXbX", "b"},
+            {"XOXwXwXw/wXOXwXwX/XwXOXwXw/OXOXbXOX/XbXOXOXO/OXOXOXbX/XbXOXbXb/bXbXbXOX", "w"},
+            {"XOXwXwXw/OXOXwXwX/XwXOXOXw/OXwXbXOX/XOXbXOXO/bXOXOXbX/XOXbXbXO/bXOXbXOX", "b"},
+            {"XOXOXOXO/OXOXWXOX/XOXOXOXO/OXOXwXOX/XOXbXOXO/OXOXOXOX/XBXOXOXO/OXOXOXWX", "b"}};
+
+    Engine(PrintStream out, AnalysisCache analysisCache) {
+        this.out = out;
+        this.analysisCache = analysisCache;
+        newGame();
+    }
+
+    /**
+     * Reads commands until "quit" or the end of the input.
+     * @param in
+     * @throws IOException
+     */
+    void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            if (!handle(line)) break;
+        }
+        stop();
+        searchThread.shutdown();
+        try {
+            searchThread.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+        if (analysisCache != null) analysisCache.close();
+        closeTracer();
+    }
+
+    /**
+     * Handles a single command.
+     * @param line
+     * @return false when the engine should exit.
+     */
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        try {
+            switch (tokens[0]) {
+                case "isready":
+                    send("readyok");
+                    break;
+                case "newgame":
+                    if (searching != null) throw new IllegalArgumentException("busy");
+                    newGame();
+                    break;
+                case "position":
+                    setPosition(tokens);
+                    break;
+                case "depth":
+                    depth = Integer.parseInt(tokens[1]);
+                    break;
+                case "movetime":
+                    moveTime = Long.parseLong(tokens[1]);
+                    break;
+                case "nodes":
+                    nodeLimit = Long.parseLong(tokens[1]);
+                    break;
+                case "go":
+                    go();
+                    break;
+                case "stop":
+                    stop();
+                    break;
+                case "setoption":
+                    setOption(tokens[1], tokens[2]);
+                    break;
+                case "trace":
+                    setTrace(tokens);
+                    break;
+                case "bench":
+                    bench(tokens.length > 1 ? Integer.parseInt(tokens[1]) : depth);
+                    break;
+                case "perft":
+                    perft(Integer.parseInt(tokens[1]));
+                    break;
+                case "quit":
+                    return false;
+                default:
+                    send("error unknown command " + tokens[0]);
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            send("error " + line);
+        }
+        return true;
+    }
+
+    private void newGame() {
+        board = new Board(depth, PlayerStats.w, variant);
+        board.setVerbose(false);
+        board.setTranspositionTable(transpositionTable);
+        board.setAnalysisCache(analysisCache);
+        board.setSearchTracer(tracer);
+        transpositionTable.clear();
+        position = variant.initialState();
+        sideToMove = PlayerStats.b;
+        continueFrom = null;
+    }
+
+    private void setPosition(String[] tokens) {
+        if (searching != null) throw new IllegalArgumentException("busy");
+        if (tokens[1].equals("startpos")) {
+            newGame();
+            return;
+        }
+        char[][] state = Notation.parsePosition(tokens[1]);
+        if (Variant.of(state) != variant) throw new IllegalArgumentException("Not a position of " + variant);
+        PlayerStats side = tokens.length > 2 ? Notation.parseSide(tokens[2]) : PlayerStats.b;
+        int[] from = null;
+        if (tokens.length > 4 && tokens[3].equals("from")) from = Notation.parseSquare(tokens[4], variant.size);
+        position = state;
+        sideToMove = side;
+        continueFrom = from;
+    }
+
+    /**
+     * Starts searching the current position on the search thread.
+     */
+    private void go() {
+        if (searching != null) throw new IllegalArgumentException("busy");
+        board.setAiPlayer(sideToMove);
+        board.setDifficulty(depth);
+        board.setMoveTime(moveTime);
+        board.setNodeLimit(nodeLimit);
+        board.setLateMoveReductions(lateMoveReductions);
+        board.setFutilityPruning(futilityPruning);
+        board.setEvaluator(evaluator);
+        board.setMultiPV(multiPV);
+        board.updateCurrentState(position);
+        int sign = sideToMove == PlayerStats.b ? 1 : -1;
+        board.setSearchListener((d, score, nodes, millis, best) -> {
+            //A search starting clears any stop asked for before it, so a stop sent that early is passed on here.
+            if (stopped) board.stopSearch();
+            if (multiPV == 1) {
+                send("info depth " + d + " score " + score * sign + " nodes " + nodes + " time " + millis
+                        + " pv " + board.describeLine(position, board.getPrincipalVariation(), sideToMove));
+                return;
+            }
+            ArrayList<BoardAndScore> ranked = board.getSuccessorEvaluations();
+            for (int i = 0; i < ranked.size(); i++) {
+                send("info depth " + d + " multipv " + (i + 1) + " score " + ranked.get(i).getScore() * sign
+                        + " nodes " + nodes + " time " + millis
+                        + " pv " + board.describeLine(position, ranked.get(i).getLine(), sideToMove));
+            }
+        });
+        stopped = false;
+        searching = board;
+        searchThread.execute(() -> {
+            char[][] best = board.getAIMoveFollowingRules(continueFrom);
+            searching = null;
+            if (best == null) send("bestmove none");
+            else send("bestmove " + Notation.formatMove(board.findCoordsOfOriginOfMove(position, best, sideToMove),
+                    board.findCoordsOfResultOfMove(position, best, sideToMove), variant.size));
+        });
+    }
+
+    private void setOption(String name, String value) {
+        if (name.equals("evaluator")) {
+            evaluator = Evaluator.forName(value);
+            return;
+        }
+        if (name.equals("variant")) {
+            if (searching != null) throw new IllegalArgumentException("busy");
+            variant = Variant.valueOf(value.toUpperCase(Locale.ROOT));
+            newGame();
+            return;
+        }
+        if (name.equals("multipv")) {
+            multiPV = Integer.parseInt(value);
+            if (multiPV < 1) throw new IllegalArgumentException(value);
+            return;
+        }
+        boolean on;
+        if (value.equals("on")) on = true;
+        else if (value.equals("off")) on = false;
+        else throw new IllegalArgumentException(value);
+        if (name.equals("lmr")) lateMoveReductions = on;
+        else if (name.equals("futility")) futilityPruning = on;
+        else throw new IllegalArgumentException(name);
+    }
+
+    /**
+     * Starts tracing searches to a file, or stops.
+     * @param tokens trace [file] [sample n] [plies n], or trace off.
+     */
+    private void setTrace(String[] tokens) {
+        if (searching != null) throw new IllegalArgumentException("busy");
+        int sample = 1;
+        int plies = Byte.MAX_VALUE;
+        for (int i = 2; i < tokens.length; i += 2) {
+            if (tokens[i].equals("sample")) sample = Integer.parseInt(tokens[i + 1]);
+            else if (tokens[i].equals("plies")) plies = Math.min(Byte.MAX_VALUE, Integer.parseInt(tokens[i + 1]));
+            else throw new IllegalArgumentException(tokens[i]);
+        }
+        closeTracer();
+        if (!tokens[1].equals("off")) {
+            try {
+                tracer = new SearchTracer(Paths.get(tokens[1]), sample, plies);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        }
+        board.setSearchTracer(tracer);
+    }
+
+    private void closeTracer() {
+        if (tracer == null) return;
+        try {
+            tracer.close();
+        } catch (IOException e) {
+            send("error trace " + e.getMessage());
+        }
+        tracer = null;
+    }
+
+    /**
+     * Searches BENCH_POSITIONS to a fixed depth with every combination of the selective search options, each
+     * position on a fresh board, and reports the total nodes and time of each combination.
+     * @param benchDepth
+     */
+    private void bench(int benchDepth) {
+        if (searching != null) throw new IllegalArgumentException("busy");
+        searchThread.execute(() -> {
+            for (int options = 0; options < 4; options++) {
+                boolean lmr = (options & 1) != 0;
+                boolean futility = (options & 2) != 0;
+                long totalNodes = 0;
+                long start = System.currentTimeMillis();
+                for (String[] benchPosition : BENCH_POSITIONS) {
+                    PlayerStats side = Notation.parseSide(benchPosition[1]);
+                    Board benchBoard = new Board(benchDepth, side.getOpponent());
+                    benchBoard.updateCurrentState(Notation.parsePosition(benchPosition[0]));
+                    benchBoard.setVerbose(false);
+                    benchBoard.setTranspositionTable(new TranspositionTable(20));
+                    benchBoard.setEvaluator(evaluator);
+                    benchBoard.setLateMoveReductions(lmr);
+                    benchBoard.setFutilityPruning(futility);
+                    benchBoard.getAIMove();
+                    totalNodes += benchBoard.getNodes();
+                }
+                send("bench depth " + benchDepth + " lmr " + (lmr ? "on" : "off") + " futility " + (futility ? "on" : "off")
+                        + " nodes " + totalNodes + " time " + (System.currentTimeMillis() - start));
+            }
+        });
+    }
+
+    /**
+     * Counts the lines of whole moves from the current position, for checking the rules against published counts.
+     * @param perftDepth
+     */
+    private void perft(int perftDepth) {
+        if (searching != null) throw new IllegalArgumentException("busy");
+        char[][] start = position;
+        PlayerStats side = sideToMove;
+        MoveGenerator generator = new MoveGenerator(variant);
+        searchThread.execute(() -> {
+            long begin = System.currentTimeMillis();
+            long count = generator.perft(start, side, perftDepth);
+            send("perft depth " + perftDepth + " nodes " + count + " time " + (System.currentTimeMillis() - begin));
+        });
+    }
+
+    private void stop() {
+        stopped = true;
+        Board board = searching;
+        if (board != null) board.stopSearch();
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+            out.flush();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        AnalysisCache analysisCache = null;
+        if (args.length > 1 && args[0].equals("-cache")) analysisCache = new AnalysisCache(Paths.get(args[1]), 64);
+        new Engine(System.out, analysisCache).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+}
@@ -0,0 +1,80 @@
+package checkers;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Scores a state for minimaxAB at the leaves of its search. B is the maximising player, so a good score for B is
+ * positive and a good score for W is negative. An evaluator may be shared by boards searching on different threads.
+ */
+interface Evaluator {
+
+    /**
+     * @param node
+     * @return int score from B's point of view.
+     */
+    int evaluate(char[][] node);
+
+    /**
+     * Scores several states at once, e.g. every child of a node one ply from the leaves. Evaluators that can score a
+     * batch faster than one at a time override this.
+     * @param nodes
+     * @param scores filled with the score of each node, from B's point of view.
+     */
+    default void evaluateAll(List<char[][]> nodes, int[] scores) {
+        for (int i = 0; i < nodes.size(); i++) scores[i] = evaluate(nodes.get(i));
+    }
+
+    /**
+     * Whether the evaluator can score positions of the given variant, e.g. a network trained on one board size can't
+     * score another.
+     * @param variant
+     * @return boolean
+     */
+    default boolean supports(Variant variant) {
+        return true;
+    }
+
+    /**
+     * Whether turning a state round 180 degrees and swapping the colours always negates its score, i.e. both colours
+     * are scored the same way. Only then can a position and its mirror image share a transposition table entry, see
+     * TranspositionTable. A trained network, for one, needn't score them alike.
+     * @return boolean
+     */
+    default boolean isColourSymmetric() {
+        return false;
+    }
+
+    /**
+     * Whether the evaluator scores every state exactly as the default DefaultEvaluator does. Results kept between
+     * runs, in an AnalysisCache, don't record how they were scored, so only those searched this way are kept.
+     * @return boolean
+     */
+    default boolean isDefault() {
+        return false;
+    }
+
+    /**
+     * Finds an evaluator by name, so one can be chosen per game.
+     * @param name "default", "material", the path of a network for NeuralEvaluator ending in ".nnue", or the path of
+     *             a weights file for DefaultEvaluator.
+     * @return Evaluator
+     * @throws IllegalArgumentException if the weights file can't be read.
+     */
+    static Evaluator forName(String name) {
+        switch (name) {
+            case "default":
+                return new DefaultEvaluator();
+            case "material":
+                return new MaterialEvaluator();
+            default:
+                try {
+                    if (name.endsWith(".nnue")) return NeuralEvaluator.load(Paths.get(name));
+                    return DefaultEvaluator.load(Paths.get(name));
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Couldn't read weights from " + name, e);
+                }
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many games at once over a line protocol on a local socket, each game with its own Board. Every connection
+ * gets its own thread (a virtual thread when the JVM has them), while the AI's turns all queue, in the order they
+ * were asked for, on one worker pool the size of the machine.
+ *
+ * Commands, any number of games per connection. A connection's games end when it closes:
+ *   new [b|w] [depth] [movetime] [evaluator]
+ *                                  start a game as the given colour, replies "game [id]". The depth and movetime
+ *                                  are capped at MAX_DEPTH and MAX_MOVETIME, and a movetime of 0 gets MAX_MOVETIME,
+ *                                  so no game can hold a worker for long. The evaluator is "default" or
+ *                                  "material", weights files are not read on behalf of clients.
+ *   move [id] [move]               play one hop, see Notation
+ *   pass [id]                      give up the rest of a multi-hop attack
+ *   show [id]
+ *   close [id]
+ *   quit
+ * After each command the server sends "ai [id] [moves..]" if the AI moved, "position [id] [position] [side to move]",
+ * "continue [id] [square]" if the user's piece has to attack again and "over [id] [winner|draw]" at the end of a game.
+ * Refused commands get "error [message]".
+ *
+ * Usage: GameServer [port] [-threads n] [-shared-tt]
+ */
+public class GameServer {
+
+    private static final int DEFAULT_PORT = 7776;
+    private static final int DEFAULT_DEPTH = 8;
+    private static final long DEFAULT_MOVETIME = 1000;
+    private static final int MAX_DEPTH = 20;
+    private static final long MAX_MOVETIME = 10000; // Milliseconds, the longest any AI turn may hold a worker.
+    private static final int SESSION_TABLE_BITS = 12; // Each game's own table, small as thousands of games may be open.
+
+    private final ConcurrentHashMap<Integer, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final ExecutorService searchPool;
+    private final TranspositionTable sharedTable; // null when each game keeps its own.
+
+    GameServer(int threads, boolean sharedTranspositionTable) {
+        // A plain FIFO queue, so games get the AI's attention in the order they asked for it.
+        searchPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        sharedTable = sharedTranspositionTable ? new TranspositionTable(22) : null;
+    }
+
+    /**
+     * Accepts connections until the process is killed.
+     * @param port
+     * @throws IOException
+     */
+    void serve(int port) throws IOException {
+        ExecutorService connections = newConnectionExecutor();
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            System.out.println("Listening on port " + serverSocket.getLocalPort());
+            while (true) {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handleConnection(socket));
+            }
+        }
+    }
+
+    /**
+     * One thread per connection. Virtual threads make that cheap with thousands of connections, so use them when
+     * the JVM has them (Java 21+) and fall back to a cached pool otherwise.
+     * @return ExecutorService
+     */
+    private static ExecutorService newConnectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+            ArrayList<Integer> games = new ArrayList<>(); // The ids of the games this connection started.
+            try {
+                serveConnection(in, out, games);
+            } finally {
+                for (int id : games) {
+                    GameSession session = sessions.remove(id);
+                    if (session != null) session.stopSearch();
+                }
+            }
+        } catch (IOException ignored) {
+            //The client went away.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serveConnection(BufferedReader in, PrintWriter out, ArrayList<Integer> games)
+            throws IOException, InterruptedException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            if (line.equals("quit")) break;
+            try {
+                handle(line.split("\\s+"), out, games);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                out.println("error " + (e.getMessage() == null ? line : e.getMessage()));
+            }
+        }
+    }
+
+    private void handle(String[] tokens, PrintWriter out, ArrayList<Integer> games) throws InterruptedException {
+        GameSession session;
+        switch (tokens[0]) {
+            case "new":
+                PlayerStats colour = Notation.parseSide(tokens[1]);
+                int depth = tokens.length > 2 ? Integer.parseInt(tokens[2]) : DEFAULT_DEPTH;
+                long moveTime = tokens.length > 3 ? Long.parseLong(tokens[3]) : DEFAULT_MOVETIME;
+                depth = Math.max(1, Math.min(depth, MAX_DEPTH));
+                //0 would search to the depth however long it took.
+                if (moveTime <= 0 || moveTime > MAX_MOVETIME) moveTime = MAX_MOVETIME;
+                String evaluatorName = tokens.length > 4 ? tokens[4] : "default";
+                if (!evaluatorName.equals("default") && !evaluatorName.equals("material")) {
+                    throw new IllegalArgumentException("unknown evaluator " + evaluatorName);
+                }
+                Evaluator evaluator = Evaluator.forName(evaluatorName);
+                int id = nextId.getAndIncrement();
+                TranspositionTable table = sharedTable != null ? sharedTable : new TranspositionTable(SESSION_TABLE_BITS);
+                session = new GameSession(id, colour, depth, moveTime, table, evaluator);
+                sessions.put(id, session);
+                games.add(id);
+                out.println("game " + id);
+                break;
+            case "move":
+                session = getSession(tokens[1]);
+                String refused = session.userMove(Notation.parseMove(tokens[2]));
+                if (refused != null) out.println("error " + refused);
+                break;
+            case "pass":
+                session = getSession(tokens[1]);
+                if (!session.pass()) out.println("error nothing to give up");
+                break;
+            case "show":
+                session = getSession(tokens[1]);
+                break;
+            case "close":
+                Integer closed = Integer.parseInt(tokens[1]);
+                session = sessions.remove(closed);
+                if (session != null) session.stopSearch();
+                games.remove(closed);
+                return;
+            default:
+                out.println("error unknown command " + tokens[0]);
+                return;
+        }
+        playAI(session, out);
+        report(session, out);
+    }
+
+    private GameSession getSession(String id) {
+        GameSession session = sessions.get(Integer.parseInt(id));
+        if (session == null) throw new IllegalArgumentException("no game " + id);
+        return session;
+    }
+
+    /**
+     * If it's the AI's turn, queues its search on the worker pool and waits for it.
+     */
+    private void playAI(GameSession session, PrintWriter out) throws InterruptedException {
+        if (!session.isAITurn() || session.isOver()) return;
+        Future<ArrayList<String>> turn = searchPool.submit(session::aiTurn);
+        ArrayList<String> hops;
+        try {
+            hops = turn.get();
+        } catch (ExecutionException e) {
+            out.println("error " + e.getCause());
+            return;
+        }
+        if (hops.isEmpty()) return;
+        out.println("ai " + session.getId() + " " + String.join(" ", hops));
+    }
+
+    private void report(GameSession session, PrintWriter out) {
+        out.println("position " + session.getId() + " " + Notation.formatPosition(session.getState()) + " " + session.getCurrentTurn());
+        int[] continueFrom = session.getContinueFrom();
+        if (continueFrom != null) out.println("continue " + session.getId() + " " + Notation.formatSquare(continueFrom[0], continueFrom[1]));
+        PlayerStats winner = session.winner();
+        if (winner != null) out.println("over " + session.getId() + " " + winner);
+        else if (session.isDraw()) out.println("over " + session.getId() + " draw");
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean sharedTable = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads")) threads = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-shared-tt")) sharedTable = true;
+            else port = Integer.parseInt(args[i]);
+        }
+        new GameServer(threads, sharedTable).serve(port);
+    }
+}
@@ -0,0 +1,149 @@
+package checkers;
+
+import java.util.ArrayList;
+
+/**
+ * One game between a remote user and the AI, played without the GUI. It follows the same turn rules as Main: a user
+ * who can attack must attack, a piece that has just attacked must carry on attacking or give up the rest of its turn,
+ * and the AI plays every hop of its turn in one go.
+ */
+class GameSession {
+
+    private final int id;
+    private final Board board;
+    private final PlayerStats userColour;
+    private boolean firstAttack; // Whether the user has to attack this turn.
+    private int[] continueFrom; // The piece that has to carry on attacking, or null.
+
+    GameSession(int id, PlayerStats userColour, int difficulty, long moveTime, TranspositionTable transpositionTable,
+                Evaluator evaluator) {
+        this.id = id;
+        this.userColour = userColour;
+        board = new Board(difficulty, userColour);
+        board.setMoveTime(moveTime);
+        board.setVerbose(false);
+        board.setTranspositionTable(transpositionTable);
+        board.setEvaluator(evaluator);
+    }
+
+    /**
+     * Applies one hop of the user's turn.
+     * @param move int[4] originX, originY, destinationX, destinationY
+     * @return null if the move was played, otherwise why it was refused.
+     */
+    synchronized String userMove(int[] move) {
+        if (board.gameOver()) return "game over";
+        if (board.getCurrentTurn() != userColour) return "not your turn";
+        char[][] state = board.getBoard();
+        if (!board.playerMoveValid(state, move[0], move[1])) return "not your piece";
+        if (continueFrom != null && (continueFrom[0] != move[0] || continueFrom[1] != move[1])) {
+            return "you can only attack from " + Notation.formatSquare(continueFrom[0], continueFrom[1]);
+        }
+        char[][] moveState = board.getLegalMoves(userColour, firstAttack, continueFrom).get(move[0], move[1], move[2], move[3]);
+
+        if (firstAttack || continueFrom != null) {
+            if (moveState == null) return "you must attack";
+            board.updateCurrentState(moveState);
+            board.updateBoardForNewKings();
+            firstAttack = false;
+            boolean continuedAttack = board.attackableMovePresent(board.getBoard(), userColour,
+                    Character.isUpperCase(board.getBoard()[move[3]][move[2]]), move[2], move[3]);
+            continueFrom = continuedAttack ? new int[]{move[2], move[3]} : null;
+            if (!continuedAttack) board.changeTurn();
+        } else {
+            if (moveState == null) return "illegal move";
+            board.updateCurrentState(moveState);
+            board.updateBoardForNewKings();
+            board.changeTurn();
+        }
+        return null;
+    }
+
+    /**
+     * Gives up the rest of a multi-hop attack.
+     * @return false if the user wasn't in the middle of one.
+     */
+    synchronized boolean pass() {
+        if (continueFrom == null) return false;
+        continueFrom = null;
+        board.changeTurn();
+        return true;
+    }
+
+    /**
+     * Plays the whole of the AI's turn, if it is the AI's turn.
+     * @return each hop the AI made, see Notation. Empty if it wasn't its turn.
+     */
+    synchronized ArrayList<String> aiTurn() {
+        ArrayList<String> hops = new ArrayList<>();
+        if (board.getCurrentTurn() != board.getAiPlayer() || board.gameOver()) return hops;
+        PlayerStats ai = board.getAiPlayer();
+        int[] from = null;
+        do {
+            char[][] best = board.getAIMoveFollowingRules(from);
+            if (best == null) break;
+
+            //If the AI just performed an attack move, it carries on attacking with the same piece if it can.
+            if (board.countPlayerTokens(best, userColour, false, false) < board.countPlayerTokens(board.getBoard(), userColour, false, false)) {
+                int[] destination = board.findCoordsOfResultOfMove(board.getBoard(), best, ai);
+                from = board.canCarryOnAttacking(best, ai, destination[0], destination[1]) ? destination : null;
+            } else {
+                from = null;
+            }
+            hops.add(Notation.formatMove(board.findCoordsOfOriginOfMove(board.getBoard(), best, ai),
+                    board.findCoordsOfResultOfMove(board.getBoard(), best, ai)));
+            board.updateCurrentState(best);
+            board.updateBoardForNewKings();
+        } while (from != null);
+        board.changeTurn();
+        firstAttack = board.attackableMovePresent(board.getBoard(), userColour);
+        return hops;
+    }
+
+    /**
+     * @return the winner, or null while the game is still going or if it was drawn.
+     */
+    synchronized PlayerStats winner() {
+        if (board.hasBlackWon(board.getBoard())) return PlayerStats.b;
+        if (board.hasWhiteWon(board.getBoard())) return PlayerStats.w;
+        return null;
+    }
+
+    /**
+     * @return whether the game has ended, in a win or a draw.
+     */
+    synchronized boolean isOver() {
+        return board.gameOver();
+    }
+
+    synchronized boolean isDraw() {
+        return board.isDraw();
+    }
+
+    synchronized char[][] getState() {
+        return board.getBoard();
+    }
+
+    synchronized boolean isAITurn() {
+        return board.getCurrentTurn() == board.getAiPlayer();
+    }
+
+    synchronized PlayerStats getCurrentTurn() {
+        return board.getCurrentTurn();
+    }
+
+    synchronized int[] getContinueFrom() {
+        return continueFrom;
+    }
+
+    /**
+     * Asks the AI to finish thinking early. Not synchronized, as it has to get through while aiTurn holds the lock.
+     */
+    void stopSearch() {
+        board.stopSearch();
+    }
+
+    int getId() {
+        return id;
+    }
+}
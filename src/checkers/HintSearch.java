@@ -0,0 +1,116 @@
+package checkers;
+
+import javafx.application.Platform;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Searches the user's position on a background thread to suggest them a move. The suggestion is passed on after
+ * every completed iteration, so it gets better as the search goes deeper, until the time allowed runs out or the hint
+ * is cancelled because the position changed.
+ *
+ * Hints look results up in the AI's transposition table and analysis cache, but never add to them. How far a hint gets
+ * depends on the clock, and the AI's node budgeted searches would otherwise play differently with hints on.
+ *
+ * start and cancel are only called from the JavaFX application thread, and hints are handed back on it.
+ */
+class HintSearch {
+
+    /**
+     * Receives hints on the JavaFX application thread.
+     */
+    interface Listener {
+
+        /**
+         * @param origin co-ordinates (x,y) of the piece to move.
+         * @param destination co-ordinates (x,y) to move it to.
+         */
+        void hint(int[] origin, int[] destination);
+    }
+
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "hint-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int maxDepth;
+    private final long moveTime;
+    private final TranspositionTable transpositionTable;
+    private final AnalysisCache analysisCache;
+    private volatile Board search; // The board searching for the current hint, null if there isn't one.
+    private int generation; // Counts the hints started and cancelled, so the reports of old ones can be dropped.
+
+    /**
+     * @param maxDepth the deepest a hint searches.
+     * @param moveTime milliseconds each hint may search for.
+     * @param transpositionTable the AI's table, or null.
+     * @param analysisCache the AI's analysis cache, or null.
+     */
+    HintSearch(int maxDepth, long moveTime, TranspositionTable transpositionTable, AnalysisCache analysisCache) {
+        this.maxDepth = maxDepth;
+        this.moveTime = moveTime;
+        this.transpositionTable = transpositionTable;
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Cancels any hint being searched and starts searching for one in the game's current state.
+     * @param game
+     * @param player the player to find a move for, whose turn it is.
+     * @param attackingPiece co-ordinates (x,y) of the piece that has to carry on attacking, or null.
+     * @param listener
+     */
+    void start(Board game, PlayerStats player, int[] attackingPiece, Listener listener) {
+        cancel();
+        int hint = generation;
+        char[][] state = new char[game.getBoard().length][];
+        for (int y = 0; y < state.length; y++) state[y] = Arrays.copyOf(game.getBoard()[y], state.length);
+
+        Board board = new Board(maxDepth, player.getOpponent(), game.getVariant());
+        board.updateCurrentState(state);
+        board.setMoveTime(moveTime);
+        board.setVerbose(false);
+        board.setTranspositionTable(transpositionTable);
+        board.setAnalysisCache(analysisCache);
+        board.setReadOnlyCaches(true);
+        board.setSearchListener((depth, score, nodes, millis, bestMove) -> {
+            //A search starting clears any stop asked for before it, so a hint cancelled then stops here instead.
+            if (search != board) board.stopSearch();
+            report(hint, board, player, bestMove, listener);
+        });
+        search = board;
+        searchThread.execute(() -> {
+            if (search != board) return; // Cancelled while waiting for the last hint's search to finish.
+            char[][] best = board.getAIMoveFollowingRules(attackingPiece);
+            report(hint, board, player, best, listener);
+        });
+    }
+
+    /**
+     * Stops the hint being searched, if there is one, without waiting for it. Nothing more is heard from it.
+     */
+    void cancel() {
+        if (search != null) search.stopSearch();
+        search = null;
+        generation++;
+    }
+
+    /**
+     * Cancels any hint and lets the search thread finish.
+     */
+    void shutdown() {
+        cancel();
+        searchThread.shutdown();
+    }
+
+    private void report(int hint, Board board, PlayerStats player, char[][] move, Listener listener) {
+        if (move == null) return;
+        int[] origin = board.findCoordsOfOriginOfMove(board.getBoard(), move, player);
+        int[] destination = board.findCoordsOfResultOfMove(board.getBoard(), move, player);
+        Platform.runLater(() -> {
+            if (hint == generation) listener.hint(origin, destination);
+        });
+    }
+}
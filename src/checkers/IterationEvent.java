@@ -0,0 +1,38 @@
+package checkers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one iteration of the AI's iterative deepening, see MoveEvent.
+ */
+@Name("checkers.SearchIteration")
+@Label("Search Iteration")
+@Category("Checkers")
+@Description("One iteration of iterative deepening")
+@StackTrace(false)
+class IterationEvent extends Event {
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Score")
+    @Description("For the AI, meaningless if aborted")
+    int score;
+
+    @Label("Nodes")
+    @Description("Since the start of the move")
+    long nodes;
+
+    @Label("Beta Cutoffs")
+    @Description("Since the start of the move")
+    long cutoffs;
+
+    @Label("Aborted")
+    @Description("Cut short by the clock, the node limit or a stop")
+    boolean aborted;
+}
@@ -1,7 +1,9 @@
 package checkers;
 
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Application;
-import javafx.concurrent.Task;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
@@ -9,29 +11,46 @@ import javafx.scene.control.ButtonType;
 import javafx.scene.control.ToolBar;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.GridPane;
-import javafx.scene.layout.StackPane;
-import javafx.scene.paint.Color;
-import javafx.scene.shape.Circle;
-import javafx.scene.shape.Line;
-import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Main extends Application {
 
+    private static final Duration HOP_DELAY = Duration.millis(400); // How long each hop of the AI's move is shown.
+    private static final int MAX_DEPTH = 32; // The deepest the AI searches, its node budget decides how deep it gets.
+    private static final long HINT_TIME = 5000; // Milliseconds a hint searches for before settling on a move.
+    private static final String[] LEVELS = {"Easy", "Medium", "Hard"};
+
     private Board board; // The Checkers game object.
     private PlayerStats userColour; // The colour checker the user chose.
-    private int difficulty; //The numerical value of the difficulty selected.
+    private Variant variant; // The variant of draughts the user chose.
+    private long[] nodeBudgets = {100, 2000, 100000}; // Nodes the AI may search per move at each of the LEVELS.
+    private long nodeLimit; //The node budget of the difficulty selected.
     private boolean firstAttack; // global variable of whether forced attack possible
     private boolean continuedAttack; //global variable of whether a player can carry on attacking
-    private GridPane boardPane; // Where the GUI Board tiles are stored.
+    private BoardView boardPane; // Where the GUI Board tiles are stored.
     private BorderPane root; // The root Pane for GUI.
     private boolean showHints;
+    private HintSearch hintSearch; // Finds the user a move in the background while hints are on.
+    private MoveIndex legalMoves; // The user's legal moves in the current state, rebuilt by updateBoard.
     Button stopTurn;
     private Stage primaryStage;
+    private AnalysisCache analysisCache; // Deep search results kept between games and runs, or null.
+    private final TranspositionTable transpositionTable = new TranspositionTable(20); // The AI's, cleared each game.
+    private Timeline playback; // Shows the AI's last move one hop at a time, null once finished.
+    private boolean aiThinking; // Whether the AI's search is running, on aiThread.
+    private final ExecutorService aiThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ai-search");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private int[] selectedChecker = new int[2]; // Where we store the selected checker to move.
 
@@ -43,10 +62,21 @@ public class Main extends Application {
         root.setCenterShape(true);
         showHints = false;
 
-        initialiseDifficultyDialog(); // The difficulty is the maximum depth of minimax AB
+        readNodeBudgets();
+        selectVariantDialog(); // English checkers on 8x8 or international draughts on 10x10.
+        initialiseDifficultyDialog(); // The difficulty is how many nodes minimax AB may search per move.
         selectColourDialog(); //The players colour choice, red or white.
 
-        board = new Board(difficulty, userColour);
+        try {
+            analysisCache = new AnalysisCache(Paths.get(System.getProperty("user.home"), ".checkers-analysis"), 64);
+        } catch (IOException e) {
+            System.out.println("Playing without the analysis cache: " + e.getMessage());
+        }
+        hintSearch = new HintSearch(MAX_DEPTH, HINT_TIME, transpositionTable, analysisCache);
+        board = new Board(MAX_DEPTH, userColour, variant);
+        board.setNodeLimit(nodeLimit);
+        board.setAnalysisCache(analysisCache);
+        board.setTranspositionTable(transpositionTable);
         firstAttack = board.attackableMovePresent(board.getBoard(),board.getCurrentTurn());
         //firstAttack will always initially be false at first due to the nature of starting state. However, this check
         //Was used when testing specific scenarios, and specific plays were the initial state.
@@ -59,32 +89,46 @@ public class Main extends Application {
 
         Button newGame = new Button("New Game"); // Starts a new game.
         newGame.setOnMouseClicked(event -> {
+            stopPlayback();
+            hintSearch.cancel();
+            //The old game's search is left to finish on its own, and its move is ignored.
+            if (aiThinking) board.stopSearch();
+            aiThinking = false;
+            //Cleared on aiThread, once the old game's search has finished with it.
+            aiThread.execute(transpositionTable::clear);
+            selectVariantDialog();
             initialiseDifficultyDialog();
             selectColourDialog();
-            board = new Board(difficulty, userColour);
+            board = new Board(MAX_DEPTH, userColour, variant);
+            board.setNodeLimit(nodeLimit);
+            board.setAnalysisCache(analysisCache);
+            board.setTranspositionTable(transpositionTable);
             firstAttack = false;
             continuedAttack = false;
-            if (userColour != PlayerStats.b) {
-                takeAITurn(board.attackableMovePresent(board.getBoard(),board.getAiPlayer()),false);
-                updateBoard();
-            } else updateBoard();
+            stopTurn.setDisable(true);
+            boardPane.setSize(variant.size);
+            primaryStage.sizeToScene();
+            updateBoard();
+            if (userColour != PlayerStats.b) takeAITurn();
         });
 
-        Button toggleHints = new Button("Toggle Hints"); //Toggles possible move locations on and off.
+        Button toggleHints = new Button("Toggle Hints"); //Toggles the AI suggesting the user's moves on and off.
         toggleHints.setOnMouseClicked(event -> {
+            //updateBoard would show the board as it stands in the middle of the AI's move.
+            if (playback != null || aiThinking) return;
             showHints = !showHints;
             updateBoard();
         });
 
         stopTurn = new Button("Give Up Turn"); //Only activated when a user can give up their multi-step move.
         stopTurn.setOnMouseClicked(event -> {
-            if (continuedAttack) {
+            if (continuedAttack && playback == null && !aiThinking) {
                 continuedAttack = false;
                 board.changeTurn();
-                takeAITurn(board.attackableMovePresent(board.getBoard(),board.getAiPlayer()),false);
                 updateBoard();
 
                 if (board.gameOver()) showWinnerDialog();
+                else takeAITurn();
             }
 
         });
@@ -93,85 +137,124 @@ public class Main extends Application {
         toolBar.getItems().addAll(newGame,toggleHints, help, stopTurn);
         root.setTop(toolBar);
 
-        primaryStage.setScene(new Scene(root, Board.TILESIZE * 8, Board.TILESIZE * 8 + 30));
-        primaryStage.show();
+        boardPane = new BoardView(variant.size); // Created once, updateBoard only redraws the tiles that change.
+        root.setCenter(boardPane);
+        initialiseListeners();
 
-        if (userColour != PlayerStats.b) { // If the AI is B, they go first.
+        primaryStage.setScene(new Scene(root)); // Sized to fit the board, and again whenever its size changes.
+        primaryStage.show();
 
-            takeAITurn(board.attackableMovePresent(board.getBoard(),board.getAiPlayer()),false);
-            firstAttack = board.attackableMovePresent(board.getBoard(),board.getCurrentTurn());
-            updateBoard();
-        } else updateBoard();
+        updateBoard();
+        if (userColour != PlayerStats.b) takeAITurn(); // If the AI is B, they go first.
 
     }
 
     /**
-     * Trying different methods to show intermediate moves.
+     * Update the board GUI representationn. Any hint for the last state is cancelled, and if hints are on and it's
+     * the user's turn a new one is searched for in the background, see showHint.
      */
-    Task<Void> waitToShowSteps = new Task<Void>() {
-        @Override
-        protected Void call() throws Exception {
-            updateBoard();
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException ignored) {
-            }
-            return null;
+    private void updateBoard() {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        hintSearch.cancel();
+        board.updateBoardForNewKings();
+        legalMoves = board.getLegalMoves(userColour, firstAttack, continuedAttack ? selectedChecker : null);
+        boardPane.render(board.getBoard(), null);
+        event.hints = showHints;
+        event.commit();
+        if (showHints && board.getCurrentTurn() == userColour && !board.gameOver() && !legalMoves.isEmpty()) {
+            hintSearch.start(board, userColour, continuedAttack ? selectedChecker : null, this::showHint);
         }
-    };
+    }
 
     /**
-     * Update the board GUI representationn.
+     * Marks the move the hint search currently thinks best. Called each time it completes a deeper iteration.
+     * @param origin
+     * @param destination
      */
-    private void updateBoard() {
-        boardPane = getGUIBoard();
-        root.setCenter(boardPane);
-        initialiseListeners();
-        primaryStage.show();
+    private void showHint(int[] origin, int[] destination) {
+        //Part way through, the search's best move may be one the rules on attacking don't allow.
+        if (playback != null || legalMoves.get(origin[0], origin[1], destination[0], destination[1]) == null) return;
+        boardPane.render(board.getBoard(), new int[]{origin[0], origin[1], destination[0], destination[1]});
     }
 
     /**
-     * This procedure deals with the AI's turn.
-     * @param firstAttack whether or not they have to attack their first turn.
-     * @param continuedAttack whether or not they have to continue attacking from a specific piece.
+     * This procedure deals with the AI's turn. Every hop of the move is searched and played on the board on aiThread,
+     * so the window stays responsive while the AI thinks, then shown one hop at a time by playBack. Clicks on the
+     * board are ignored until both are done.
      */
-    private void takeAITurn(boolean firstAttack, boolean continuedAttack) {
-        //Gets the best possible move from successor function.
-        char[][] bestChoiceForAI;
-        //mustAttack = board.attackableMovePresent(board.getBoard(), userColour);
-        if (firstAttack) {
-            bestChoiceForAI = board.getAIMoveMustAttack(false,false,0,0);
-            firstAttack = false; }
-           // bestChoiceForAI = board.getAIMoveMustAttack(Character.isUpperCase(board.getBoard()[1][0]), selectedChecker[0], selectedChecker[1]);
-        else if (continuedAttack) {
-            bestChoiceForAI = board.getAIMoveMustAttack(true,Character.isUpperCase(board.getBoard()[1][0]), selectedChecker[0], selectedChecker[1]);
-        }
-        else bestChoiceForAI = board.getAIMove();
-
-        //If the AI just performed an attack move..
-        if (board.countPlayerTokens(bestChoiceForAI, userColour, false, false) <
-                board.countPlayerTokens(board.getBoard(), userColour, false, false)) {
-
-            int[] destination = board.findCoordsOfResultOfMove(board.getBoard(), bestChoiceForAI, board.getAiPlayer());
-            continuedAttack = board.attackableMovePresent(bestChoiceForAI, board.getAiPlayer(),
-                    Character.isUpperCase(bestChoiceForAI[destination[1]][destination[0]]), destination[0], destination[1]);
+    private void takeAITurn() {
+        Board searched = board;
+        aiThinking = true;
+        aiThread.execute(() -> {
+            ArrayList<char[][]> hops = playAITurn(searched);
+            Platform.runLater(() -> {
+                if (board != searched) return; // A new game was started while the AI was thinking.
+                aiThinking = false;
+                //After the AI's move, if the user can attack, they must.
+                firstAttack = board.attackableMovePresent(board.getBoard(), userColour);
+                continuedAttack = false;
+                stopTurn.setDisable(true);
+                playBack(hops);
+            });
+        });
+    }
 
-            if (continuedAttack) selectedChecker = destination;
-            else {
-                board.changeTurn();
+    /**
+     * Searches and plays every hop of the AI's turn. Runs on aiThread, while nothing else touches the board.
+     * @param board
+     * @return the state after each hop.
+     */
+    private static ArrayList<char[][]> playAITurn(Board board) {
+        PlayerStats ai = board.getAiPlayer();
+        PlayerStats user = ai.getOpponent();
+        ArrayList<char[][]> hops = new ArrayList<>();
+        int[] attackingPiece = null; // The piece that must carry on attacking, null on the first hop.
+        do {
+            char[][] before = board.getBoard();
+            char[][] bestChoiceForAI = board.getAIMoveFollowingRules(attackingPiece);
+            if (bestChoiceForAI == null) break;
+            attackingPiece = null;
+
+            //If the AI just performed an attack move, it carries on if the same piece can attack again.
+            if (board.countPlayerTokens(bestChoiceForAI, user, false, false) <
+                    board.countPlayerTokens(before, user, false, false)) {
+                int[] destination = board.findCoordsOfResultOfMove(before, bestChoiceForAI, ai);
+                if (board.canCarryOnAttacking(bestChoiceForAI, ai, destination[0], destination[1]))
+                    attackingPiece = destination;
             }
+            board.updateCurrentState(bestChoiceForAI);
+            board.updateBoardForNewKings();
+            hops.add(board.getBoard());
+        } while (attackingPiece != null);
+        //The turn only changes once the move is on the board, so the board's history records the right state.
+        board.changeTurn();
+        return hops;
+    }
 
-        } else {
-            continuedAttack = false;
-            this.continuedAttack = false;
-            board.changeTurn();
-        }
-        board.updateCurrentState(bestChoiceForAI);
-        if (continuedAttack) {
-            //PauseTransition pause = new PauseTransition(Duration.seconds(1));
-            //new Thread(waitToShowSteps).start();
-            takeAITurn(false,true);
+    /**
+     * Shows the states of a move one after another, HOP_DELAY apart, then the board as it stands. Clicks on the board
+     * are ignored until it finishes.
+     * @param hops the state after each hop.
+     */
+    private void playBack(ArrayList<char[][]> hops) {
+        playback = new Timeline();
+        for (int i = 0; i < hops.size(); i++) {
+            char[][] hop = hops.get(i);
+            playback.getKeyFrames().add(new KeyFrame(HOP_DELAY.multiply(i), event -> boardPane.render(hop, null)));
         }
+        playback.getKeyFrames().add(new KeyFrame(HOP_DELAY.multiply(hops.size()), event -> {
+            playback = null;
+            updateBoard();
+            //Dialogs can't wait while an animation is running, so it's shown once this frame is done.
+            if (board.gameOver()) Platform.runLater(this::showWinnerDialog);
+        }));
+        playback.play();
+    }
+
+    private void stopPlayback() {
+        if (playback != null) playback.stop();
+        playback = null;
     }
 
     /**
@@ -183,6 +266,7 @@ public class Main extends Application {
         //When a user click and holds the tile with the checker on they wish to move..
         boardPane.addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
 
+            if (playback != null || aiThinking) return; // The AI's move is still being searched or shown.
             int[] temp = calculateSquareCoOrds(event.getX(), event.getY());
             assert temp != null;
             System.out.println("Click On: " + temp[0] + "," + temp[1]);
@@ -193,6 +277,7 @@ public class Main extends Application {
 
         //When the user releases their click..
         boardPane.addEventHandler(MouseEvent.MOUSE_RELEASED, event -> {
+            if (playback != null || aiThinking) return;
             //If it's their turn..
             if (board.getCurrentTurn() == userColour) {
                 //We store the result co-ordinates.
@@ -203,21 +288,19 @@ public class Main extends Application {
 
                 //If their move is valid..
                 if (board.playerMoveValid(board.getBoard(), selectedChecker[0], selectedChecker[1])) {
-                    //We create a state representation of the board after they move.
-                    char[][] moveState = board.returnStateOfMove(selectedChecker[0], selectedChecker[1], destination[0], destination[1]);
+                    //We look up the state representation of the board after they move, null if it isn't a legal move.
+                    char[][] moveState = chooseMove(selectedChecker, destination);
 
                     //If the user can attack on their first go, they must.
                     if (firstAttack) {
-                        //We check to see if the state representation of their move is contained within their possible
-                        //states gained from the attack only successor function.
-                        if (Board.contains(board.getAllAttackableMoves(board.getBoard(), userColour, Character.isUpperCase(board.getBoard()[selectedChecker[1]][selectedChecker[0]]),
-                                selectedChecker[0], selectedChecker[1]), moveState)) {
+                        //The legal moves only contain attacks, so any move found is an attack.
+                        if (moveState != null) {
                             //If it is, we update the current state.
                             System.out.println("all good!");
                             board.updateCurrentState(moveState);
 
                             //And we set must attack to true if the user can attack again from those co-ordinates. False otherwise.
-                            continuedAttack = board.attackableMovePresent(board.getBoard(), userColour, Character.isUpperCase(board.getBoard()[destination[1]][destination[0]]),
+                            continuedAttack = board.canCarryOnAttacking(board.getBoard(), userColour,
                                     destination[0], destination[1]);
                             firstAttack = false;
                             //If they can attack again, their origin selection is stored as the attack destination.
@@ -235,17 +318,14 @@ public class Main extends Application {
                     }
                     //If the user already attacked, and can again, they must, or forfeit their go.
                     else if (continuedAttack) {
-                        //If the move state representation is contained within the attack move only successor function,
-                        //It's a legal move.
-                        if (Board.contains(board.getAllAttackableMoves(board.getBoard(), board.getCurrentTurn(),
-                                board.getBoard()[selectedChecker[1]][selectedChecker[0]] == board.getCurrentTurn().getKingChar(),
-                                selectedChecker[0], selectedChecker[1]), moveState)) {
+                        //The legal moves only contain attacks from the piece that just attacked.
+                        if (moveState != null) {
                             System.out.println("all good!");
                             //We update the current state
                             board.updateCurrentState(moveState);
 
                             //If, after the attack, the same piece can attack again, it's still a continued attack.
-                            continuedAttack = board.attackableMovePresent(board.getBoard(), userColour, Character.isUpperCase(board.getBoard()[destination[1]][destination[0]]),
+                            continuedAttack = board.canCarryOnAttacking(board.getBoard(), userColour,
                                     destination[0], destination[1]);
 
                             //If they can attack, store origin of next move as destination of this move.
@@ -263,8 +343,8 @@ public class Main extends Application {
                     }
                     //If they don't have to make an attacking move..
                     else {
-                        //We check to see if the move is a legal valid play from whether or not it's stored in the successor Function.
-                        if (Board.contains(board.successorFunction(board.getCurrentTurn(), board.getBoard(), false), moveState)) {
+                        //We check to see if the move is a legal valid play from whether or not it's in the legal moves.
+                        if (moveState != null) {
                             System.out.println("all good!");
                             //Update the current state
                             board.updateCurrentState(moveState);
@@ -290,21 +370,50 @@ public class Main extends Application {
                 }
             }
             //The AI's turn..
-            if (board.getCurrentTurn() == board.getAiPlayer() && !board.gameOver()) {
-                takeAITurn(board.attackableMovePresent(board.getBoard(),board.getAiPlayer()),false);
+            if (board.getCurrentTurn() == board.getAiPlayer() && !board.gameOver()) takeAITurn();
+        });
+    }
 
-                //After the AI's move, if the user can attack, they must.
-                firstAttack = board.attackableMovePresent(board.getBoard(),userColour);
-                continuedAttack = false;
-                stopTurn.setDisable(true);
-                updateBoard();
+    /**
+     * Looks up the state after the user's move. If several captures go from and to the same squares, taking
+     * different pieces, the user is asked which pieces to take.
+     * @param origin
+     * @param destination
+     * @return char[][] the state after the move, or null if it isn't legal.
+     */
+    private char[][] chooseMove(int[] origin, int[] destination) {
+        ArrayList<char[][]> moves = legalMoves.getAll(origin[0], origin[1], destination[0], destination[1]);
+        if (moves.size() < 2) return moves.isEmpty() ? null : moves.get(0);
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
 
-                if (board.gameOver()) {
-                    showWinnerDialog();
-                    //FreezeGame
+        alert.setTitle("Capture");
+        alert.setHeaderText("Checkers");
+        alert.setContentText("More than one capture ends on that square.\n" +
+                "Please select the pieces to take.");
+
+        ArrayList<ButtonType> buttons = new ArrayList<>();
+        for (char[][] move : moves) buttons.add(new ButtonType(describeCaptures(board.getBoard(), move)));
+        alert.getButtonTypes().setAll(buttons);
+        Optional<ButtonType> option = alert.showAndWait();
+        return moves.get(buttons.indexOf(option.get()));
+    }
+
+    /**
+     * @param before
+     * @param after
+     * @return the squares of the user's opponent's pieces taken between the states, e.g. "c5 e5".
+     */
+    private String describeCaptures(char[][] before, char[][] after) {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < before.length; y++) {
+            for (int x = 0; x < before.length; x++) {
+                if (Character.toLowerCase(before[y][x]) == userColour.getOpponent().getPawnChar() && after[y][x] == 'O') {
+                    if (sb.length() > 0) sb.append(' ');
+                    sb.append(Notation.formatSquare(x, y, before.length));
                 }
             }
-        });
+        }
+        return sb.toString();
     }
 
     private void showInvalidMove(String message) {
@@ -314,81 +423,42 @@ public class Main extends Application {
         invalidMove.showAndWait();
     }
 
-    private GridPane getGUIBoard() {
-        ArrayList<int[]> suggestionLocations;
-        if (continuedAttack) {
-            suggestionLocations = board.interpretState(board.getAllAttackableMoves(board.getBoard(), userColour,
-                    Character.isUpperCase(board.getBoard()[selectedChecker[1]][selectedChecker[0]]), selectedChecker[0], selectedChecker[1])
-                    , userColour);
-        }
-        else if (firstAttack) {
-            suggestionLocations = board.interpretState(board.successorFunction(userColour,board.getBoard(),true) , userColour);
+    private int[] calculateSquareCoOrds(double x, double y) {
+        int boardX = (int) x / Board.TILESIZE;
+        int boardY = (int) y / Board.TILESIZE;
+        int size = board.getVariant().size;
+        return (boardX < size && boardY < size && boardX >= 0 && boardY >= 0) ? new int[]{boardX, boardY} : null;
+    }
 
-        } else{
-            suggestionLocations = board.interpretState(board.successorFunction(userColour, board.getBoard(), false), userColour);
+    /**
+     * Reads any node budgets given on the command line, e.g. --hard=500000, in place of the defaults.
+     */
+    private void readNodeBudgets() {
+        for (int level = 0; level < LEVELS.length; level++) {
+            String budget = getParameters().getNamed().get(LEVELS[level].toLowerCase());
+            if (budget != null) nodeBudgets[level] = Long.parseLong(budget);
         }
-        GridPane gridPane = new GridPane();
-        board.updateBoardForNewKings();
-        for (int y = 0; y < 8; y++) {
-            for (int x = 0; x < 8; x++) {
-                if (board.getBoard()[y][x] == 'X') {
-                    gridPane.add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BROWN), x, y);
-                } else if (board.getBoard()[y][x] == 'O') {
-                    StackPane stackPane = new StackPane();
-                    Rectangle rectangle = new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BLACK);
-                    stackPane.getChildren().add(rectangle);
-                    if (showHints) {
-                        if (deepContains(suggestionLocations, new int[]{x, y})) {
-                            Line line1 = new Line(x * Board.TILESIZE + Board.TILESIZE / 3,
-                                    y * Board.TILESIZE + Board.TILESIZE / 3,
-                                    x * Board.TILESIZE + (Board.TILESIZE / 3 * 2),
-                                    y * Board.TILESIZE + (Board.TILESIZE / 3 * 2));
-                            line1.setStroke(Color.GREEN);
-
-                            Line line2 = new Line(x * Board.TILESIZE + (Board.TILESIZE / 3 * 2),
-                                    y * Board.TILESIZE + Board.TILESIZE / 3,
-                                    x * Board.TILESIZE + Board.TILESIZE / 3,
-                                    y * Board.TILESIZE + (Board.TILESIZE / 3 * 2));
-                            line2.setStroke(Color.GREEN);
-
-                            stackPane.getChildren().addAll(line1, line2);
-                        }
-                    }
+    }
 
-                    gridPane.add(stackPane, x, y);
-                } else if (board.getBoard()[y][x] == 'b') {
-                    StackPane stackPane = new StackPane();
-                    stackPane.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BLACK));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE, PlayerStats.b.getColor()));
-                    gridPane.add(stackPane, x, y);
-                } else if (board.getBoard()[y][x] == 'w') {
-                    StackPane stackPane = new StackPane();
-                    stackPane.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BLACK));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE, PlayerStats.w.getColor()));
-                    gridPane.add(stackPane, x, y);
-                } else if (board.getBoard()[y][x] == 'B') {
-                    StackPane stackPane = new StackPane();
-                    stackPane.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BLACK));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE, PlayerStats.b.getColor()));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE / 4, Color.BLACK));
-                    gridPane.add(stackPane, x, y);
-                } else if (board.getBoard()[y][x] == 'W') {
-                    StackPane stackPane = new StackPane();
-                    stackPane.getChildren().add(new Rectangle(Board.TILESIZE, Board.TILESIZE, Color.BLACK));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE, PlayerStats.w.getColor()));
-                    stackPane.getChildren().add(new Circle(Board.COUNTERSIZE / 4, Color.BLACK));
-                    gridPane.add(stackPane, x, y);
-                }
-            }
-        }
+    private void selectVariantDialog() {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
 
-        return gridPane;
-    }
+        alert.setTitle("Variant");
+        alert.setHeaderText("Checkers");
+        alert.setContentText("Please select the game to play.\n" +
+                "International draughts is played on 10x10, with flying kings and the longest capture compulsory.");
 
-    private int[] calculateSquareCoOrds(double x, double y) {
-        int boardX = (int) x / Board.TILESIZE;
-        int boardY = (int) y / Board.TILESIZE;
-        return (boardX < 8 && boardY < 8 && boardX >= 0 && boardY >= 0) ? new int[]{boardX, boardY} : null;
+        ButtonType englishButton = new ButtonType("English");
+        ButtonType internationalButton = new ButtonType("International");
+        alert.getButtonTypes().setAll(englishButton, internationalButton);
+        Optional<ButtonType> option = alert.showAndWait();
+        if (option.get() == englishButton) {
+            variant = Variant.ENGLISH;
+        } else if (option.get() == internationalButton) {
+            variant = Variant.INTERNATIONAL;
+        } else {
+            System.exit(0);
+        }
     }
 
     private void initialiseDifficultyDialog() {
@@ -398,19 +468,19 @@ public class Main extends Application {
         alert.setHeaderText("Checkers");
         alert.setContentText("Please select your difficulty.");
 
-        ButtonType easyButton = new ButtonType("Easy");
-        ButtonType mediumButton = new ButtonType("Medium");
-        ButtonType hardButton = new ButtonType("Hard");
+        ButtonType easyButton = new ButtonType(LEVELS[0]);
+        ButtonType mediumButton = new ButtonType(LEVELS[1]);
+        ButtonType hardButton = new ButtonType(LEVELS[2]);
 
         alert.getButtonTypes().setAll(easyButton, mediumButton, hardButton);
 
         Optional<ButtonType> option = alert.showAndWait();
         if (option.get() == easyButton) {
-            difficulty = 1;
+            nodeLimit = nodeBudgets[0];
         } else if (option.get() == mediumButton) {
-            difficulty = 4;
+            nodeLimit = nodeBudgets[1];
         } else if (option.get() == hardButton) {
-            difficulty = 8;
+            nodeLimit = nodeBudgets[2];
         } else {
             System.exit(0);
         }
@@ -440,7 +510,10 @@ public class Main extends Application {
     private void showWinnerDialog() {
         //board.changeTurn();
         Alert winnerDialog = new Alert(Alert.AlertType.INFORMATION);
-        if ((board.hasBlackWon(board.getBoard()) && PlayerStats.b == userColour) ||
+        if (board.isDraw() && !board.hasBlackWon(board.getBoard()) && !board.hasWhiteWon(board.getBoard())) {
+            winnerDialog.setHeaderText("Draw!");
+            winnerDialog.setContentText("The same position came round three times, or neither side made progress.");
+        } else if ((board.hasBlackWon(board.getBoard()) && PlayerStats.b == userColour) ||
                 (board.hasWhiteWon(board.getBoard()) && PlayerStats.w == userColour)) {
             winnerDialog.setHeaderText("Congratulations!");
             winnerDialog.setContentText("You Won! Well Done!");
@@ -451,16 +524,13 @@ public class Main extends Application {
         winnerDialog.showAndWait();
     }
 
-    private boolean deepContains(ArrayList<int[]> a, int[] b) {
-        if (a.isEmpty()) return false;
-        if (a == null) return false;
-        for (int[] a_ : a) {
-
-            if (a_[0] == b[0] && a_[1] == b[1]) {
-                return true;
-            }
-        }
-        return false;
+    @Override
+    public void stop() throws IOException {
+        stopPlayback();
+        hintSearch.shutdown();
+        if (aiThinking) board.stopSearch();
+        aiThread.shutdown();
+        if (analysisCache != null) analysisCache.close();
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,29 @@
+package checkers;
+
+/**
+ * A cheap evaluation that only counts pieces and kings, for comparing the cost of DefaultEvaluator against what its
+ * extra features are worth.
+ */
+class MaterialEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(char[][] node) {
+        int score = 0;
+        for (int y = 0; y < node.length; y++) {
+            for (int x = 0; x < node.length; x++) {
+                switch (node[y][x]) {
+                    case 'b': score += 3; break;
+                    case 'B': score += 8; break;
+                    case 'w': score -= 3; break;
+                    case 'W': score -= 8; break;
+                }
+            }
+        }
+        return score;
+    }
+
+    @Override
+    public boolean isColourSymmetric() {
+        return true;
+    }
+}
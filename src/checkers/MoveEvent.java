@@ -0,0 +1,43 @@
+package checkers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for one move the AI chooses, from getAIMove or getAIMoveMustAttack, so slow moves can
+ * be lined up with GC and JIT activity in a recording. Its duration is the whole search. Like every JFR event it
+ * costs next to nothing unless a recording has it enabled, and the move is only written out if one has.
+ */
+@Name("checkers.AIMove")
+@Label("AI Move")
+@Category("Checkers")
+@Description("A move chosen by the AI")
+@StackTrace(false)
+class MoveEvent extends Event {
+
+    @Label("Depth Reached")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Beta Cutoffs")
+    long cutoffs;
+
+    @Label("Score")
+    @Description("From B's point of view")
+    int score;
+
+    @Label("Move")
+    String move;
+
+    @Label("Must Attack")
+    boolean mustAttack;
+
+    @Label("From Analysis Cache")
+    boolean cached;
+}
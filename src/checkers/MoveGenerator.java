@@ -0,0 +1,248 @@
+package checkers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Makes whole moves, every jump of a capture at once, under a Variant's rules. The pieces are packed into 64 bit
+ * masks of the playable squares, see Variant, so whether a square is empty or holds an enemy is a single bit test
+ * and a step along a diagonal a single add.
+ *
+ * A capture is followed for as long as the piece can carry on jumping. Pieces taken are only removed once the move is
+ * over, so none can be jumped twice and they block the way until then. A pawn is only made a king if its move ends
+ * on the far row. Capturing is compulsory, and with majority capture only the captures taking the most pieces are
+ * kept. Two ways round the same pieces, from and to the same squares, are the same move and kept once.
+ *
+ * A generator keeps its working masks between calls, so each board, and so each search thread, has its own.
+ */
+final class MoveGenerator {
+
+    private final Variant variant;
+    private final int[] steps = new int[4]; // Bit offsets of a step forward left, forward right, back left, back right for B.
+    private final int[] column = new int[64]; // x of each bit.
+    private final int[] row = new int[64]; // y of each bit.
+
+    // The position being worked on, for the player to move.
+    private long own;
+    private long kings;
+    private long enemies;
+    private long empty;
+    private PlayerStats player;
+
+    // The moves found so far, as the piece's bit before and after and the bits of the pieces it takes.
+    private int[] froms = new int[32];
+    private int[] tos = new int[32];
+    private long[] taken = new long[32];
+    private int moveCount;
+    private int most; // The most pieces any capture found so far takes.
+
+    MoveGenerator(Variant variant) {
+        this.variant = variant;
+        steps[Diagonals.FORWARD_LEFT] = variant.step(-1, -1);
+        steps[Diagonals.FORWARD_RIGHT] = variant.step(1, -1);
+        steps[Diagonals.BACKWARD_LEFT] = variant.step(-1, 1);
+        steps[Diagonals.BACKWARD_RIGHT] = variant.step(1, 1);
+        for (int square = 0; square < variant.squares; square++) {
+            column[variant.bit(square)] = variant.x(square);
+            row[variant.bit(square)] = variant.y(square);
+        }
+    }
+
+    /**
+     * Every move the player can make, captures only if there are any.
+     * @param state
+     * @param player
+     * @param attackOnly whether to leave out the moves that aren't captures even when there are no captures.
+     * @return ArrayList of char[][] representing the states after each move.
+     */
+    ArrayList<char[][]> moves(char[][] state, PlayerStats player, boolean attackOnly) {
+        pack(state, player);
+        moveCount = 0;
+        most = 1;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            empty |= 1L << from; // The piece has left its square.
+            capture(from, from, (kings >>> from & 1) != 0, 0);
+            empty &= ~(1L << from);
+        }
+        if (moveCount == 0 && !attackOnly) {
+            for (long pieces = own; pieces != 0; pieces &= pieces - 1) addSteps(Long.numberOfTrailingZeros(pieces));
+        }
+        ArrayList<char[][]> children = new ArrayList<>(moveCount);
+        for (int i = 0; i < moveCount; i++) children.add(play(state, froms[i], tos[i], taken[i]));
+        return children;
+    }
+
+    /**
+     * Whether the player can capture anything.
+     * @param state
+     * @param player
+     * @return boolean
+     */
+    boolean canCapture(char[][] state, PlayerStats player) {
+        pack(state, player);
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            for (int direction = 0; direction < 4; direction++) {
+                if (firstJump(from, (kings >>> from & 1) != 0, direction, 0) >= 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether the player has any move at all, worked out without making the states the moves lead to.
+     * @param state
+     * @param player
+     * @return boolean
+     */
+    boolean hasMove(char[][] state, PlayerStats player) {
+        if (canCapture(state, player)) return true;
+        for (long pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            boolean king = (kings >>> from & 1) != 0;
+            for (int direction = 0; direction < (king ? 4 : 2); direction++) {
+                if (isEmpty(from + stepFor(direction))) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Counts the positions at the end of every line of moves depth plies long, for checking the rules against
+     * published counts.
+     * @param state
+     * @param player the player to move.
+     * @param depth
+     * @return long positions.
+     */
+    long perft(char[][] state, PlayerStats player, int depth) {
+        if (depth == 0) return 1;
+        ArrayList<char[][]> children = moves(state, player, false);
+        if (depth == 1) return children.size();
+        long count = 0;
+        for (char[][] child : children) count += perft(child, player.getOpponent(), depth - 1);
+        return count;
+    }
+
+    private void pack(char[][] state, PlayerStats player) {
+        this.player = player;
+        own = 0;
+        kings = 0;
+        enemies = 0;
+        for (int square = 0; square < variant.squares; square++) {
+            int bit = variant.bit(square);
+            char tile = state[row[bit]][column[bit]];
+            if (tile == player.getPawnChar() || tile == player.getKingChar()) own |= 1L << bit;
+            else if (tile != 'O') enemies |= 1L << bit;
+            if (tile == player.getKingChar() || tile == player.getOpponent().getKingChar()) kings |= 1L << bit;
+        }
+        empty = variant.board & ~own & ~enemies;
+    }
+
+    /**
+     * The offset of a step in one of the Diagonals directions, from the point of view of the player to move.
+     * @param direction
+     * @return int offset.
+     */
+    private int stepFor(int direction) {
+        return player == PlayerStats.b ? steps[direction] : -steps[direction];
+    }
+
+    private boolean isEmpty(int bit) {
+        return bit >= 0 && bit < 64 && (empty >>> bit & 1) != 0;
+    }
+
+    /**
+     * Where the piece on at lands when it jumps in the given direction, the first of the squares it could land on for
+     * a flying king, if it can.
+     * @param at
+     * @param king
+     * @param direction
+     * @param alreadyTaken the pieces taken so far this move, which can't be jumped again.
+     * @return int bit of the first landing square, or -1.
+     */
+    private int firstJump(int at, boolean king, int direction, long alreadyTaken) {
+        if (!king && !variant.pawnsTakeBackwards && direction >= Diagonals.BACKWARD_LEFT) return -1;
+        int step = stepFor(direction);
+        int over = at + step;
+        if (king && variant.flyingKings) {
+            while (isEmpty(over)) over += step;
+        }
+        if (over < 0 || over >= 64 || ((enemies & ~alreadyTaken) >>> over & 1) == 0) return -1;
+        return isEmpty(over + step) ? over + step : -1;
+    }
+
+    /**
+     * Follows every way the piece that started on from can carry on capturing from at, adding each capture that can
+     * go no further.
+     * @param from
+     * @param at
+     * @param king
+     * @param alreadyTaken
+     */
+    private void capture(int from, int at, boolean king, long alreadyTaken) {
+        boolean further = false;
+        for (int direction = 0; direction < 4; direction++) {
+            int landing = firstJump(at, king, direction, alreadyTaken);
+            if (landing < 0) continue;
+            int step = stepFor(direction);
+            long nowTaken = alreadyTaken | 1L << (landing - step);
+            further = true;
+            //A flying king can stop on any empty square beyond the piece it takes.
+            do {
+                capture(from, landing, king, nowTaken);
+                landing += step;
+            } while (king && variant.flyingKings && isEmpty(landing));
+        }
+        if (!further && alreadyTaken != 0) add(from, at, alreadyTaken);
+    }
+
+    private void addSteps(int from) {
+        boolean king = (kings >>> from & 1) != 0;
+        for (int direction = 0; direction < (king ? 4 : 2); direction++) {
+            int step = stepFor(direction);
+            for (int to = from + step; isEmpty(to); to += step) {
+                add(from, to, 0);
+                if (!king || !variant.flyingKings) break;
+            }
+        }
+    }
+
+    private void add(int from, int to, long pieces) {
+        if (variant.majorityCapture && pieces != 0) {
+            int count = Long.bitCount(pieces);
+            if (count < most) return;
+            if (count > most) {
+                most = count;
+                moveCount = 0;
+            }
+        }
+        for (int i = 0; i < moveCount; i++) {
+            if (froms[i] == from && tos[i] == to && taken[i] == pieces) return;
+        }
+        if (moveCount == froms.length) {
+            froms = Arrays.copyOf(froms, moveCount * 2);
+            tos = Arrays.copyOf(tos, moveCount * 2);
+            taken = Arrays.copyOf(taken, moveCount * 2);
+        }
+        froms[moveCount] = from;
+        tos[moveCount] = to;
+        taken[moveCount] = pieces;
+        moveCount++;
+    }
+
+    private char[][] play(char[][] state, int from, int to, long pieces) {
+        char[][] next = new char[state.length][];
+        for (int y = 0; y < state.length; y++) next[y] = Arrays.copyOf(state[y], state[y].length);
+        char piece = state[row[from]][column[from]];
+        next[row[from]][column[from]] = 'O';
+        for (; pieces != 0; pieces &= pieces - 1) {
+            int bit = Long.numberOfTrailingZeros(pieces);
+            next[row[bit]][column[bit]] = 'O';
+        }
+        boolean crowned = row[to] == variant.kingsRow(player.getOpponent());
+        next[row[to]][column[to]] = crowned ? player.getKingChar() : piece;
+        return next;
+    }
+}
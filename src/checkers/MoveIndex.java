@@ -0,0 +1,61 @@
+package checkers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Every legal move of one player in one position, looked up by where the piece moves from and to. It is built once
+ * per change of state, so checking the user's moves doesn't have to run the successor function and compare whole
+ * states every time.
+ *
+ * With whole moves, several captures can go from and to the same squares taking different pieces, so each (from, to)
+ * keeps every one of them.
+ */
+class MoveIndex {
+
+    private final HashMap<Integer, ArrayList<char[][]>> moves = new HashMap<>(); // (from, to) -> states after the moves.
+    private final int size;
+
+    /**
+     * @param size of the board.
+     */
+    MoveIndex(int size) {
+        this.size = size;
+    }
+
+    void add(int originX, int originY, int destinationX, int destinationY, char[][] state) {
+        moves.computeIfAbsent(key(originX, originY, destinationX, destinationY), k -> new ArrayList<>(1)).add(state);
+    }
+
+    /**
+     * @param originX
+     * @param originY
+     * @param destinationX
+     * @param destinationY
+     * @return the state after the move, the first added if there are several, or null if the move isn't legal.
+     */
+    char[][] get(int originX, int originY, int destinationX, int destinationY) {
+        ArrayList<char[][]> states = moves.get(key(originX, originY, destinationX, destinationY));
+        return states == null ? null : states.get(0);
+    }
+
+    /**
+     * @param originX
+     * @param originY
+     * @param destinationX
+     * @param destinationY
+     * @return the states after every legal move from and to those squares, empty if there are none.
+     */
+    ArrayList<char[][]> getAll(int originX, int originY, int destinationX, int destinationY) {
+        ArrayList<char[][]> states = moves.get(key(originX, originY, destinationX, destinationY));
+        return states == null ? new ArrayList<>() : states;
+    }
+
+    boolean isEmpty() {
+        return moves.isEmpty();
+    }
+
+    private int key(int originX, int originY, int destinationX, int destinationY) {
+        return (originY * size + originX) * size * size + destinationY * size + destinationX;
+    }
+}
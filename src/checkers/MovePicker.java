@@ -0,0 +1,143 @@
+package checkers;
+
+import java.util.ArrayList;
+
+/**
+ * Hands minimaxAB the children of a node one at a time. Rather than making every child up front, they are made in
+ * stages, each only when the one before has run out, so a node that cuts off on its first or second move makes
+ * hardly any of the others:
+ *   1. the move on the expected line, if the node is on it
+ *   2. the hash move, the best move the transposition table remembers for the node
+ *   3. attacks
+ *   4. killer moves, quiet moves that caused a cutoff at the same depth elsewhere in the tree
+ *   5. the rest of the quiet moves
+ * The hash and killer moves were found in other positions, so they are checked to be legal first. Moves handed out
+ * early are not handed out again by the later stages.
+ *
+ * A picker can also be made from a list of children that is already complete and ordered, for nodes that need them
+ * all anyway.
+ */
+final class MovePicker {
+
+    private static final int PRINCIPAL_VARIATION = 0;
+    private static final int HASH = 1;
+    private static final int ATTACKS = 2;
+    private static final int KILLERS = 3;
+    private static final int QUIET = 4;
+    private static final int LISTED = 5;
+    private static final int DONE = 6;
+
+    private final Board board;
+    private final char[][] node;
+    private final PlayerStats player;
+    private final char[][] pvMove;
+    private final int hashMove;
+    private final int[] killers;
+    private final ArrayList<char[][]> tried = new ArrayList<>(4); // Handed out before their stage.
+    private ArrayList<char[][]> generated; // The moves of the current stage, made when it starts.
+    private int index;
+    private int killerIndex;
+    private int stage;
+
+    /**
+     * A staged picker.
+     * @param board for making the moves.
+     * @param node
+     * @param player the player to move.
+     * @param pvMove the child on the expected line, or null.
+     * @param hashMove see Board.encodeHop, or -1.
+     * @param killers see Board.encodeHop, -1 for none.
+     */
+    MovePicker(Board board, char[][] node, PlayerStats player, char[][] pvMove, int hashMove, int[] killers) {
+        this.board = board;
+        this.node = node;
+        this.player = player;
+        this.pvMove = pvMove;
+        this.hashMove = hashMove;
+        this.killers = killers;
+        stage = PRINCIPAL_VARIATION;
+    }
+
+    /**
+     * A picker that hands out children already made, in their order.
+     * @param children
+     */
+    MovePicker(ArrayList<char[][]> children) {
+        this(null, null, null, null, -1, null);
+        generated = children;
+        stage = LISTED;
+    }
+
+    /**
+     * @return the next child, or null when there are no more.
+     */
+    char[][] next() {
+        while (true) {
+            switch (stage) {
+                case PRINCIPAL_VARIATION:
+                    stage = HASH;
+                    if (pvMove != null) {
+                        tried.add(pvMove);
+                        return pvMove;
+                    }
+                    break;
+                case HASH:
+                    stage = ATTACKS;
+                    char[][] hashChild = play(hashMove);
+                    if (hashChild != null) return hashChild;
+                    break;
+                case ATTACKS:
+                    if (generated == null) generated = board.successorFunction(player, node, true);
+                    char[][] attack = nextGenerated();
+                    if (attack != null) return attack;
+                    generated = null;
+                    stage = KILLERS;
+                    break;
+                case KILLERS:
+                    if (killerIndex == killers.length) {
+                        stage = QUIET;
+                        break;
+                    }
+                    int killer = killers[killerIndex++];
+                    //Only steps, any attack has already been handed out.
+                    if (killer >= 0 && Math.abs((killer >> 9) - ((killer & 63) >> 3)) == 1) {
+                        char[][] killerChild = play(killer);
+                        if (killerChild != null) return killerChild;
+                    }
+                    break;
+                case QUIET:
+                    if (generated == null) generated = board.quietMoves(player, node);
+                    char[][] quiet = nextGenerated();
+                    if (quiet != null) return quiet;
+                    stage = DONE;
+                    break;
+                case LISTED:
+                    return index < generated.size() ? generated.get(index++) : null;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * The child a remembered move leads to, if it is legal here and hasn't been handed out already.
+     * @param move see Board.encodeHop, or -1.
+     * @return char[][] child, or null.
+     */
+    private char[][] play(int move) {
+        if (move < 0 || !board.isLegalHop(node, player, move >> 6, move & 63)) return null;
+        char[][] child = board.playHop(node, move >> 6, move & 63);
+        if (Board.contains(tried, child)) return null;
+        tried.add(child);
+        return child;
+    }
+
+    private char[][] nextGenerated() {
+        while (index < generated.size()) {
+            char[][] child = generated.get(index++);
+            if (!Board.contains(tried, child)) return child;
+        }
+        index = 0;
+        return null;
+    }
+}
@@ -0,0 +1,158 @@
+package checkers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A small quantised neural network evaluation, in the style of NNUE. The inputs are one per piece type per playable
+ * square, 128 in all, feeding a hidden layer (32 units unless trained otherwise) through 16 bit weights. The hidden
+ * sums are clipped to 0-127 and summed through 8 bit output weights into the score.
+ *
+ * The hidden layer's sums, the accumulator, are kept from one evaluation to the next. The search has no make and
+ * unmake, but the states it evaluates one after another are siblings or near relatives that differ in a few
+ * squares, so only the weights of the pieces that changed are added and taken away. Each thread has its own
+ * accumulator, so one evaluator can be shared between boards.
+ *
+ * Networks are written by NeuralTrainer, see SelfPlay for where the training positions come from.
+ */
+class NeuralEvaluator implements Evaluator {
+
+    static final int MAGIC = 0x4e4e5545; // "NNUE"
+    static final int INPUTS = 4 * 32;
+    static final int ACTIVATION_MAX = 127; // A clipped activation of 1.0.
+
+    private final int hidden;
+    private final short[] inputWeights; // hidden weights per input, one input's weights next to each other.
+    private final short[] hiddenBias;
+    private final byte[] outputWeights;
+    private final int outputBias;
+    private final int outputDivisor; // Turns the quantised sum back into evaluation points.
+    private final ThreadLocal<Accumulator> accumulators;
+
+    NeuralEvaluator(short[] inputWeights, short[] hiddenBias, byte[] outputWeights, int outputBias, int outputDivisor) {
+        this.hidden = hiddenBias.length;
+        this.inputWeights = inputWeights;
+        this.hiddenBias = hiddenBias;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+        this.outputDivisor = outputDivisor;
+        accumulators = ThreadLocal.withInitial(Accumulator::new);
+    }
+
+    /**
+     * Reads a network written by save.
+     * @param path
+     * @return NeuralEvaluator
+     * @throws IOException if the file can't be read or isn't a network.
+     */
+    static NeuralEvaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) throw new IOException(path + " is not a network");
+            int hidden = in.readInt();
+            short[] inputWeights = new short[INPUTS * hidden];
+            for (int i = 0; i < inputWeights.length; i++) inputWeights[i] = in.readShort();
+            short[] hiddenBias = new short[hidden];
+            for (int i = 0; i < hidden; i++) hiddenBias[i] = in.readShort();
+            byte[] outputWeights = new byte[hidden];
+            in.readFully(outputWeights);
+            return new NeuralEvaluator(inputWeights, hiddenBias, outputWeights, in.readInt(), in.readInt());
+        }
+    }
+
+    /**
+     * Writes the network so load can read it back.
+     * @param path
+     * @throws IOException
+     */
+    void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(hidden);
+            for (short weight : inputWeights) out.writeShort(weight);
+            for (short bias : hiddenBias) out.writeShort(bias);
+            out.write(outputWeights);
+            out.writeInt(outputBias);
+            out.writeInt(outputDivisor);
+        }
+    }
+
+    /**
+     * The input a tile's contents switch on.
+     * @param tile
+     * @param square 0-31, see squareX and squareY.
+     * @return int input, or -1 for an empty tile.
+     */
+    static int input(char tile, int square) {
+        switch (tile) {
+            case 'b': return square;
+            case 'B': return 32 + square;
+            case 'w': return 64 + square;
+            case 'W': return 96 + square;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Playable squares are numbered 0-31, four to a row from the top.
+     * @param square
+     * @return int x
+     */
+    static int squareX(int square) {
+        int y = square / 4;
+        return (square % 4) * 2 + (y + 1) % 2;
+    }
+
+    static int squareY(int square) {
+        return square / 4;
+    }
+
+    @Override
+    public boolean supports(Variant variant) {
+        return variant == Variant.ENGLISH;
+    }
+
+    @Override
+    public int evaluate(char[][] node) {
+        Accumulator accumulator = accumulators.get();
+        int[] sums = accumulator.sums;
+        for (int square = 0; square < 32; square++) {
+            int input = input(node[squareY(square)][squareX(square)], square);
+            int previous = accumulator.inputs[square];
+            if (input == previous) continue;
+            if (previous >= 0) {
+                int offset = previous * hidden;
+                for (int i = 0; i < hidden; i++) sums[i] -= inputWeights[offset + i];
+            }
+            if (input >= 0) {
+                int offset = input * hidden;
+                for (int i = 0; i < hidden; i++) sums[i] += inputWeights[offset + i];
+            }
+            accumulator.inputs[square] = input;
+        }
+        int sum = outputBias;
+        for (int i = 0; i < hidden; i++) {
+            int activation = Math.min(Math.max(sums[i], 0), ACTIVATION_MAX);
+            sum += activation * outputWeights[i];
+        }
+        return sum / outputDivisor;
+    }
+
+    /**
+     * The hidden layer's sums for the last state a thread evaluated, and which input each square had switched on.
+     */
+    private final class Accumulator {
+        final int[] inputs = new int[32];
+        final int[] sums = new int[hidden];
+
+        Accumulator() {
+            Arrays.fill(inputs, -1);
+            for (int i = 0; i < hidden; i++) sums[i] = hiddenBias[i];
+        }
+    }
+}
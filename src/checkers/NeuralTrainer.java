@@ -0,0 +1,185 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Trains a NeuralEvaluator network on positions written by SelfPlay and saves it quantised. The network is trained
+ * in floating point to predict the search score of each position, optionally blended with the game's result, then
+ * its hidden weights are scaled to 16 bits and its output weights to 8 bits.
+ *
+ * Usage: NeuralTrainer [samples] [network] [-hidden n] [-epochs n] [-rate r] [-lambda l]
+ *   lambda is how much of the target comes from the result rather than the search score, 0-1.
+ */
+public class NeuralTrainer {
+
+    private static final float SCALE = 10; // Evaluation points per unit of network output.
+    private static final int SCORE_LIMIT = 60; // Scores beyond this, such as wins, are clipped to it.
+    private static final float RESULT_SCORE = 30; // The score a won game counts as when lambda is above 0.
+
+    private final int hidden;
+    private final float[][] inputWeights;
+    private final float[] hiddenBias;
+    private final float[] outputWeights;
+    private float outputBias;
+
+    NeuralTrainer(int hidden, Random random) {
+        this.hidden = hidden;
+        inputWeights = new float[NeuralEvaluator.INPUTS][hidden];
+        hiddenBias = new float[hidden];
+        outputWeights = new float[hidden];
+        for (float[] weights : inputWeights) {
+            for (int i = 0; i < hidden; i++) weights[i] = (random.nextFloat() - 0.5f) * 0.2f;
+        }
+        for (int i = 0; i < hidden; i++) {
+            hiddenBias[i] = 0.5f;
+            outputWeights[i] = (random.nextFloat() - 0.5f) * 0.2f;
+        }
+    }
+
+    /**
+     * One training position: the inputs it switches on and the score to learn, in network units.
+     */
+    private static final class Sample {
+        final int[] inputs;
+        final float target;
+
+        Sample(int[] inputs, float target) {
+            this.inputs = inputs;
+            this.target = target;
+        }
+    }
+
+    private static Sample readSample(String line, float lambda) {
+        String[] fields = line.split("\t");
+        char[][] state = Notation.parsePosition(fields[0]);
+        ArrayList<Integer> active = new ArrayList<>();
+        for (int square = 0; square < 32; square++) {
+            int input = NeuralEvaluator.input(state[NeuralEvaluator.squareY(square)][NeuralEvaluator.squareX(square)], square);
+            if (input >= 0) active.add(input);
+        }
+        int[] inputs = new int[active.size()];
+        for (int i = 0; i < inputs.length; i++) inputs[i] = active.get(i);
+        float score = Math.max(-SCORE_LIMIT, Math.min(SCORE_LIMIT, Integer.parseInt(fields[2])));
+        float result = Integer.parseInt(fields[3]) * RESULT_SCORE;
+        return new Sample(inputs, ((1 - lambda) * score + lambda * result) / SCALE);
+    }
+
+    /**
+     * Works out the network's output for a sample, keeping the hidden sums for training.
+     * @param sample
+     * @param sums filled with the hidden layer's sums before clipping.
+     * @return float output in network units.
+     */
+    private float forward(Sample sample, float[] sums) {
+        System.arraycopy(hiddenBias, 0, sums, 0, hidden);
+        for (int input : sample.inputs) {
+            float[] weights = inputWeights[input];
+            for (int i = 0; i < hidden; i++) sums[i] += weights[i];
+        }
+        float output = outputBias;
+        for (int i = 0; i < hidden; i++) output += clip(sums[i]) * outputWeights[i];
+        return output;
+    }
+
+    private static float clip(float sum) {
+        return Math.max(0, Math.min(1, sum));
+    }
+
+    /**
+     * One step of stochastic gradient descent on the squared error.
+     * @return the squared error before the step.
+     */
+    private float train(Sample sample, float[] sums, float rate) {
+        float error = forward(sample, sums) - sample.target;
+        float gradient = 2 * error * rate;
+        for (int i = 0; i < hidden; i++) {
+            float activation = clip(sums[i]);
+            float hiddenGradient = sums[i] > 0 && sums[i] < 1 ? gradient * outputWeights[i] : 0;
+            outputWeights[i] -= gradient * activation;
+            if (hiddenGradient == 0) continue;
+            hiddenBias[i] -= hiddenGradient;
+            for (int input : sample.inputs) inputWeights[input][i] -= hiddenGradient;
+        }
+        outputBias -= gradient;
+        return error * error;
+    }
+
+    /**
+     * Scales the weights to whole numbers for NeuralEvaluator, an activation of 1.0 becoming ACTIVATION_MAX.
+     * @return NeuralEvaluator
+     */
+    NeuralEvaluator quantise() {
+        int max = NeuralEvaluator.ACTIVATION_MAX;
+        short[] quantisedInputs = new short[NeuralEvaluator.INPUTS * hidden];
+        for (int input = 0; input < NeuralEvaluator.INPUTS; input++) {
+            for (int i = 0; i < hidden; i++) quantisedInputs[input * hidden + i] = toShort(inputWeights[input][i] * max);
+        }
+        short[] quantisedBias = new short[hidden];
+        for (int i = 0; i < hidden; i++) quantisedBias[i] = toShort(hiddenBias[i] * max);
+        //The largest output weight decides how finely the rest can be kept in 8 bits.
+        float largest = 1e-6f;
+        for (float weight : outputWeights) largest = Math.max(largest, Math.abs(weight));
+        int divisor = (int) Math.max(1, Math.min(1 << 16, Math.floor(max * max / (SCALE * largest))));
+        byte[] quantisedOutputs = new byte[hidden];
+        for (int i = 0; i < hidden; i++) {
+            quantisedOutputs[i] = (byte) Math.max(-max, Math.min(max, Math.round(outputWeights[i] * SCALE * divisor / max)));
+        }
+        return new NeuralEvaluator(quantisedInputs, quantisedBias, quantisedOutputs,
+                Math.round(outputBias * SCALE * divisor), divisor);
+    }
+
+    private static short toShort(float value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(value)));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: NeuralTrainer [samples] [network] [-hidden n] [-epochs n] [-rate r] [-lambda l]");
+            System.exit(1);
+        }
+        int hidden = 32;
+        int epochs = 20;
+        float rate = 0.005f;
+        float lambda = 0;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-hidden")) hidden = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-epochs")) epochs = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-rate")) rate = Float.parseFloat(args[++i]);
+            else if (args[i].equals("-lambda")) lambda = Float.parseFloat(args[++i]);
+        }
+        ArrayList<Sample> samples = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.trim().isEmpty()) samples.add(readSample(line, lambda));
+            }
+        }
+        Random random = new Random(2018);
+        Collections.shuffle(samples, random);
+        //The last tenth is kept back, to see whether the network learns positions it hasn't seen.
+        int validation = samples.size() / 10;
+        ArrayList<Sample> training = new ArrayList<>(samples.subList(validation, samples.size()));
+        NeuralTrainer trainer = new NeuralTrainer(hidden, random);
+        float[] sums = new float[hidden];
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            Collections.shuffle(training, random);
+            double trainingError = 0;
+            for (Sample sample : training) trainingError += trainer.train(sample, sums, rate);
+            double validationError = 0;
+            for (Sample sample : samples.subList(0, validation)) {
+                float error = trainer.forward(sample, sums) - sample.target;
+                validationError += error * error;
+            }
+            System.out.printf("Epoch %d: training error %.4f, validation error %.4f%n", epoch,
+                    trainingError / Math.max(1, training.size()), validationError / Math.max(1, validation));
+        }
+        trainer.quantise().save(Paths.get(args[1]));
+    }
+}
@@ -0,0 +1,127 @@
+package checkers;
+
+/**
+ * Text forms of states and moves, used wherever the game is driven without the GUI.
+ * A position is the rows of the char[][] state from y = 0 down, joined by '/', 8 of them for English draughts and 10
+ * for international. A square is written as a file a-h for x = 0..7 and a rank 1-8 counting up from the bottom row
+ * (y = 7), so a move reads like "c3-d4". On the 10x10 board the files run to j and the ranks to 10.
+ */
+final class Notation {
+
+    private Notation() {
+    }
+
+    /**
+     * Writes a state as a position string.
+     * @param state
+     * @return String position.
+     */
+    static String formatPosition(char[][] state) {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < state.length; y++) {
+            if (y > 0) sb.append('/');
+            sb.append(state[y]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Reads a position string back into a state representation.
+     * @param position
+     * @return char[][] state.
+     * @throws IllegalArgumentException if the position is not the rows of a Variant's board, each of valid tiles.
+     */
+    static char[][] parsePosition(String position) {
+        String[] rows = position.split("/");
+        int size = Variant.forSize(rows.length).size;
+        char[][] state = new char[size][];
+        for (int y = 0; y < size; y++) {
+            if (rows[y].length() != size) {
+                throw new IllegalArgumentException("Expected " + size + " tiles in row " + y + ": " + rows[y]);
+            }
+            for (char c : rows[y].toCharArray()) {
+                if ("XObBwW".indexOf(c) < 0) throw new IllegalArgumentException("Unknown tile '" + c + "' in row " + y);
+            }
+            state[y] = rows[y].toCharArray();
+        }
+        return state;
+    }
+
+    /**
+     * Reads "b" or "w" as a player.
+     * @param side
+     * @return PlayerStats
+     * @throws IllegalArgumentException for anything else.
+     */
+    static PlayerStats parseSide(String side) {
+        if (side.equals("b")) return PlayerStats.b;
+        if (side.equals("w")) return PlayerStats.w;
+        throw new IllegalArgumentException("Unknown side: " + side);
+    }
+
+    static String formatSquare(int x, int y) {
+        return formatSquare(x, y, 8);
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param size of the board.
+     * @return String square.
+     */
+    static String formatSquare(int x, int y, int size) {
+        return "" + (char) ('a' + x) + (size - y);
+    }
+
+    /**
+     * Reads a square such as "c3".
+     * @param square
+     * @return int[2] co-ordinates x,y
+     * @throws IllegalArgumentException if it is not on the board.
+     */
+    static int[] parseSquare(String square) {
+        return parseSquare(square, 8);
+    }
+
+    /**
+     * Reads a square such as "c3" or "j10".
+     * @param square
+     * @param size of the board.
+     * @return int[2] co-ordinates x,y
+     * @throws IllegalArgumentException if it is not on the board.
+     */
+    static int[] parseSquare(String square, int size) {
+        if (square.length() < 2 || square.length() > 3) throw new IllegalArgumentException("Bad square: " + square);
+        int x = square.charAt(0) - 'a';
+        int y;
+        try {
+            y = size - Integer.parseInt(square.substring(1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad square: " + square);
+        }
+        if (x < 0 || x >= size || y < 0 || y >= size) throw new IllegalArgumentException("Bad square: " + square);
+        return new int[]{x, y};
+    }
+
+    static String formatMove(int[] origin, int[] destination) {
+        return formatMove(origin, destination, 8);
+    }
+
+    static String formatMove(int[] origin, int[] destination, int size) {
+        return formatSquare(origin[0], origin[1], size) + "-" + formatSquare(destination[0], destination[1], size);
+    }
+
+    /**
+     * Reads a move such as "c3-d4" or "c3xe5".
+     * @param move
+     * @return int[4] originX, originY, destinationX, destinationY
+     * @throws IllegalArgumentException if either square is bad.
+     */
+    static int[] parseMove(String move) {
+        String[] squares = move.split("[-x]");
+        if (squares.length != 2) throw new IllegalArgumentException("Bad move: " + move);
+        int[] origin = parseSquare(squares[0]);
+        int[] destination = parseSquare(squares[1]);
+        return new int[]{origin[0], origin[1], destination[0], destination[1]};
+    }
+}
@@ -0,0 +1,247 @@
+package checkers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * One game in Portable Draughts Notation: its tags, its moves as written and its result.
+ *
+ * PDN numbers the 32 playable squares from B's (PDN's Black's) side, 1-4 being B's back row from g1 to a1. A move
+ * is written "11-15", and an attack "15x24", or "15x24x31" for a multi-hop attack, which may be shortened to
+ * "15x31" when only one attack goes from 15 to 31. B moves first, as in this game.
+ */
+class PdnGame {
+
+    private final LinkedHashMap<String, String> tags = new LinkedHashMap<>();
+    private final ArrayList<String> moves = new ArrayList<>();
+    private String result = "*";
+
+    void setTag(String name, String value) {
+        tags.put(name, value);
+    }
+
+    String getTag(String name) {
+        return tags.get(name);
+    }
+
+    LinkedHashMap<String, String> getTags() {
+        return tags;
+    }
+
+    void addMove(String move) {
+        moves.add(move);
+    }
+
+    List<String> getMoves() {
+        return moves;
+    }
+
+    String getResult() {
+        return result;
+    }
+
+    void setResult(String result) {
+        this.result = result;
+    }
+
+    /**
+     * @return the state the game starts from, read from the FEN tag if there is one.
+     */
+    char[][] getStartState() {
+        String fen = getTag("FEN");
+        return fen == null ? Board.initialState() : parseFen(fen);
+    }
+
+    /**
+     * @return the player who moves first, read from the FEN tag if there is one.
+     */
+    PlayerStats getStartingPlayer() {
+        String fen = getTag("FEN");
+        return fen == null || Character.toUpperCase(fen.trim().charAt(0)) == 'B' ? PlayerStats.b : PlayerStats.w;
+    }
+
+    /**
+     * An attack from start to finish, as the squares the piece lands on and the state it leaves.
+     */
+    private static class CapturePath {
+
+        final int[] squares; // PDN numbers of the square the piece starts on and each square it lands on.
+        final char[][] state;
+
+        CapturePath(ArrayList<Integer> squares, char[][] state) {
+            this.squares = squares.stream().mapToInt(Integer::intValue).toArray();
+            this.state = state;
+        }
+    }
+
+    /**
+     * Plays the moves through the same rules the GUI enforces: a player who can attack must attack, and an attack
+     * only ends when the attacking piece can't attack again. An attack is matched against every complete attack the
+     * player has, either hop by hop or, written with just its first and last squares, if only one attack fits.
+     * @return the state before the first move followed by the state after each move.
+     * @throws IllegalArgumentException at the first move that isn't legal.
+     */
+    ArrayList<char[][]> replay() {
+        ArrayList<char[][]> states = new ArrayList<>();
+        Board board = new Board(1, PlayerStats.w);
+        board.updateCurrentState(getStartState());
+        states.add(board.getBoard());
+        PlayerStats player = getStartingPlayer();
+        for (int i = 0; i < moves.size(); i++) {
+            String[] written = moves.get(i).split("[-x]");
+            int[] squares = new int[written.length];
+            for (int j = 0; j < written.length; j++) squares[j] = Integer.parseInt(written[j]);
+            char[][] next = null;
+            if (board.attackableMovePresent(board.getBoard(), player)) {
+                for (CapturePath path : capturePaths(board, player)) {
+                    int last = path.squares.length - 1;
+                    boolean matches = squares.length == 2
+                            ? path.squares[0] == squares[0] && path.squares[last] == squares[1]
+                            : Arrays.equals(path.squares, squares);
+                    if (!matches) continue;
+                    if (next != null) {
+                        throw new IllegalArgumentException("Move " + (i + 1) + " (" + moves.get(i) + ") is ambiguous");
+                    }
+                    next = path.state;
+                }
+            } else if (squares.length == 2) {
+                int[] origin = squareCoords(squares[0]);
+                int[] destination = squareCoords(squares[1]);
+                next = board.getLegalMoves(player, false, null).get(origin[0], origin[1], destination[0], destination[1]);
+            }
+            if (next == null) {
+                throw new IllegalArgumentException("Move " + (i + 1) + " (" + moves.get(i) + ") is not legal");
+            }
+            board.updateCurrentState(next);
+            board.updateBoardForNewKings();
+            states.add(board.getBoard());
+            player = player.getOpponent();
+        }
+        return states;
+    }
+
+    /**
+     * Every complete attack the player has in the board's current state.
+     * @param board
+     * @param player
+     * @return ArrayList of CapturePath
+     */
+    private static ArrayList<CapturePath> capturePaths(Board board, PlayerStats player) {
+        ArrayList<CapturePath> paths = new ArrayList<>();
+        char[][] state = board.getBoard();
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                if (Character.toLowerCase(state[y][x]) != player.getPawnChar()) continue;
+                ArrayList<Integer> squares = new ArrayList<>();
+                squares.add(squareNumber(x, y));
+                addCapturePaths(board, state, player, x, y, squares, paths);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Follows every hop the piece at (x,y) can attack with, adding each attack to paths when the piece can't go on.
+     * @param board
+     * @param state
+     * @param player
+     * @param x
+     * @param y
+     * @param squares the squares the attack has visited so far, ending at (x,y).
+     * @param paths
+     */
+    private static void addCapturePaths(Board board, char[][] state, PlayerStats player, int x, int y,
+                                        ArrayList<Integer> squares, ArrayList<CapturePath> paths) {
+        boolean king = Character.isUpperCase(state[y][x]);
+        for (char[][] next : board.getAllAttackableMoves(state, player, king, x, y)) {
+            int[] landing = board.findCoordsOfResultOfMove(state, next, player);
+            squares.add(squareNumber(landing[0], landing[1]));
+            if (board.canCarryOnAttacking(next, player, landing[0], landing[1])) {
+                addCapturePaths(board, next, player, landing[0], landing[1], squares, paths);
+            } else paths.add(new CapturePath(squares, next));
+            squares.remove(squares.size() - 1);
+        }
+    }
+
+    /**
+     * The PDN number of the playable square at (x,y).
+     * @param x
+     * @param y
+     * @return int 1-32
+     */
+    static int squareNumber(int x, int y) {
+        int firstPlayable = (y + 1) % 2;
+        return (7 - y) * 4 + (3 - (x - firstPlayable) / 2) + 1;
+    }
+
+    /**
+     * The co-ordinates of a PDN square number.
+     * @param square 1-32
+     * @return int[2] (x,y)
+     * @throws IllegalArgumentException if there is no such square.
+     */
+    static int[] squareCoords(int square) {
+        if (square < 1 || square > 32) throw new IllegalArgumentException("No square " + square);
+        int y = 7 - (square - 1) / 4;
+        int firstPlayable = (y + 1) % 2;
+        return new int[]{firstPlayable + 2 * (3 - (square - 1) % 4), y};
+    }
+
+    /**
+     * Writes a state in the FEN form of a PDN tag, e.g. "B:W21,22,K5:B1,2".
+     * @param state
+     * @param toMove
+     * @return String
+     */
+    static String toFen(char[][] state, PlayerStats toMove) {
+        StringBuilder white = new StringBuilder();
+        StringBuilder black = new StringBuilder();
+        for (int square = 1; square <= 32; square++) {
+            int[] coords = squareCoords(square);
+            char tile = state[coords[1]][coords[0]];
+            StringBuilder list = Character.toLowerCase(tile) == 'w' ? white : Character.toLowerCase(tile) == 'b' ? black : null;
+            if (list == null) continue;
+            if (list.length() > 0) list.append(',');
+            if (Character.isUpperCase(tile)) list.append('K');
+            list.append(square);
+        }
+        return (toMove == PlayerStats.b ? "B" : "W") + ":W" + white + ":B" + black;
+    }
+
+    /**
+     * Reads the FEN form of a PDN tag. Square ranges such as "1-12" are allowed.
+     * @param fen
+     * @return char[][] state
+     * @throws IllegalArgumentException if it can't be read.
+     */
+    static char[][] parseFen(String fen) {
+        char[][] state = Board.initialState();
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                if (state[y][x] != 'X') state[y][x] = 'O';
+            }
+        }
+        String[] fields = fen.trim().replace(".", "").split(":");
+        for (int i = 1; i < fields.length; i++) {
+            String field = fields[i].trim();
+            if (field.isEmpty()) continue;
+            PlayerStats owner = Character.toUpperCase(field.charAt(0)) == 'B' ? PlayerStats.b : PlayerStats.w;
+            for (String piece : field.substring(1).split(",")) {
+                piece = piece.trim();
+                if (piece.isEmpty()) continue;
+                boolean king = Character.toUpperCase(piece.charAt(0)) == 'K';
+                if (king) piece = piece.substring(1);
+                String[] range = piece.split("-");
+                int first = Integer.parseInt(range[0]);
+                int last = range.length > 1 ? Integer.parseInt(range[1]) : first;
+                for (int square = first; square <= last; square++) {
+                    int[] coords = squareCoords(square);
+                    state[coords[1]][coords[0]] = king ? owner.getKingChar() : owner.getPawnChar();
+                }
+            }
+        }
+        return state;
+    }
+}
@@ -0,0 +1,163 @@
+package checkers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads PDN files one game at a time. The file is read through a fixed size buffer and only the game being read is
+ * kept, so databases of any size can be read in constant memory. Comments, variations and move annotations are
+ * skipped.
+ */
+class PdnReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final StringBuilder token = new StringBuilder();
+    private int pushedBack = -1;
+
+    PdnReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next game.
+     * @return PdnGame, or null at the end of the file.
+     * @throws IOException
+     */
+    PdnGame next() throws IOException {
+        PdnGame game = null;
+        boolean movesSeen = false;
+        int c;
+        while ((c = skipWhitespace()) != -1) {
+            if (game == null) game = new PdnGame();
+            if (c == '[') {
+                //A tag after the moves means the last game had no result.
+                if (movesSeen) {
+                    pushedBack = c;
+                    return game;
+                }
+                readTag(game);
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || c == '%') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else {
+                String word = readToken(c);
+                if (isResult(word)) {
+                    game.setResult(word);
+                    return game;
+                }
+                String move = stripMoveNumber(word);
+                if (!move.isEmpty()) {
+                    game.addMove(move);
+                    movesSeen = true;
+                }
+            }
+        }
+        return game;
+    }
+
+    private void readTag(PdnGame game) throws IOException {
+        int c = skipWhitespace();
+        token.setLength(0);
+        while (c != -1 && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            token.append((char) c);
+            c = read();
+        }
+        String name = token.toString();
+        while (c != -1 && c != '"' && c != ']') c = read();
+        token.setLength(0);
+        if (c == '"') {
+            c = read();
+            while (c != -1 && c != '"') {
+                if (c == '\\') c = read();
+                if (c != -1) token.append((char) c);
+                c = read();
+            }
+            skipPast(']');
+        }
+        game.setTag(name, token.toString());
+    }
+
+    private String readToken(int c) throws IOException {
+        token.setLength(0);
+        while (c != -1 && !Character.isWhitespace(c) && "[]{}();".indexOf(c) < 0) {
+            token.append((char) c);
+            c = read();
+        }
+        if (c != -1 && !Character.isWhitespace(c)) pushedBack = c;
+        return token.toString();
+    }
+
+    private static boolean isResult(String word) {
+        return word.equals("*") || word.equals("1-0") || word.equals("0-1") || word.equals("1/2-1/2")
+                || word.equals("2-0") || word.equals("0-2") || word.equals("1-1");
+    }
+
+    /**
+     * Removes a move number such as "12." or "12..." and any annotation such as "!?" from a token.
+     * @param word
+     * @return the move, or an empty String if the token was only a move number.
+     */
+    private static String stripMoveNumber(String word) {
+        int dot = word.lastIndexOf('.');
+        String move = dot >= 0 ? word.substring(dot + 1) : word;
+        int end = move.length();
+        while (end > 0 && !Character.isDigit(move.charAt(end - 1))) end--;
+        return move.substring(0, end);
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (c == '(') depth++;
+            else if (c == ')') depth--;
+            else if (c == '{') skipPast('}');
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read = channel.read(buffer);
+            buffer.flip();
+            if (read <= 0) return -1;
+        }
+        return buffer.get() & 0xff;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,68 @@
+package checkers;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes games in PDN, one after another, to a file.
+ */
+class PdnWriter implements Closeable {
+
+    private static final int LINE_LENGTH = 79;
+
+    private final BufferedWriter out;
+
+    PdnWriter(Path path) throws IOException {
+        out = Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes a game's tags, then its moves numbered in pairs, then its result.
+     * @param game
+     * @throws IOException
+     */
+    void write(PdnGame game) throws IOException {
+        for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+            out.write("[" + tag.getKey() + " \"" + tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"") + "\"]");
+            out.newLine();
+        }
+        out.newLine();
+
+        List<String> moves = game.getMoves();
+        StringBuilder line = new StringBuilder();
+        //When W moves first, the first move number only has W's move after it.
+        int offset = game.getStartingPlayer() == PlayerStats.b ? 0 : 1;
+        for (int i = 0; i < moves.size(); i++) {
+            String word;
+            if ((i + offset) % 2 == 0) word = (i + offset) / 2 + 1 + ". " + moves.get(i);
+            else if (i == 0) word = "1... " + moves.get(i);
+            else word = moves.get(i);
+            append(line, word);
+        }
+        append(line, game.getResult());
+        out.write(line.toString());
+        out.newLine();
+        out.newLine();
+    }
+
+    private void append(StringBuilder line, String word) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + word.length() > LINE_LENGTH) {
+            out.write(line.toString());
+            out.newLine();
+            line.setLength(0);
+        }
+        if (line.length() > 0) line.append(' ');
+        line.append(word);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,22 @@
+package checkers;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event for each redraw of the board by Main.updateBoard, see MoveEvent.
+ */
+@Name("checkers.Render")
+@Label("Board Render")
+@Category("Checkers")
+@Description("The GUI working out the user's moves and redrawing the board")
+@StackTrace(false)
+class RenderEvent extends Event {
+
+    @Label("Hints Shown")
+    boolean hints;
+}
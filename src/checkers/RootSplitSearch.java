@@ -0,0 +1,273 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyses one position deeper than a single process can, by sharing its root moves out between SearchWorker
+ * processes. Each root move is a job: searching the state after it, for the opponent, one ply shallower. Jobs are
+ * queued best first by a quick local search, and each worker takes the next one as soon as it finishes its last, so
+ * a worker that finishes early picks up moves a busy worker would otherwise have got to later. A worker that goes
+ * away has its job put back at the front of the queue, and so does a job a worker answers with an error, until it has
+ * failed MAX_ATTEMPTS times and the whole search fails.
+ *
+ * Workers connect over TCP, so they can run on other machines, or with -spawn they are started on this one. Until a
+ * root move has an exact score, jobs are searched with a full window. After that each job only has to show whether
+ * its move beats the best score so far, so it is searched with a null window just above it. A move that does beat it
+ * fails high and is searched again with a full window for its exact score. The others only get an upper bound.
+ *
+ * While the search runs, each worker's iterations are passed on as "info [move] depth [d] score [s] nodes [n]", and
+ * each finished root move as "move [move] score [s] depth [d] nodes [n] pv [moves..]", with "upperbound" after the
+ * score if it is one. It ends with "bestmove [move] score [s] nodes [n] time [ms]". Scores are from the point of view
+ * of the side to move at the root.
+ *
+ * Usage: RootSplitSearch [position] [b|w] [-depth n] [-workers n] [-port n] [-spawn]
+ *   Without -spawn, start the workers with SearchWorker [host] [port].
+ */
+public class RootSplitSearch {
+
+    private static final int DEFAULT_PORT = 7777;
+    private static final int ORDERING_DEPTH = 4; // How deep the quick search that orders the jobs goes.
+    private static final int MAX_ATTEMPTS = 3; // Errors a job may get from workers before the search gives up.
+
+    private final char[][] position;
+    private final PlayerStats side;
+    private final int depth;
+    private final Board board; // Only for generating and describing moves, workers do the searching.
+    private final BlockingDeque<Job> jobs = new LinkedBlockingDeque<>();
+    private final ArrayList<Job> finished = new ArrayList<>();
+    private final AtomicInteger workers = new AtomicInteger(); // Connected and not yet finished.
+    private CountDownLatch remaining;
+    private int bestScore = Integer.MIN_VALUE; // The best exact score finished so far, guarded by finished.
+    private volatile String failure; // Why the search has to give up, or null.
+
+    /**
+     * One root move and what the workers have found out about it.
+     */
+    private static final class Job {
+        final char[][] state; // After the move.
+        final String move;
+        int score; // For the side to move at the root.
+        boolean upperBound; // Whether score is only an upper bound, as the move was no better than an earlier one.
+        boolean fullWindow; // Whether to search it with a full window, having failed high in a null one.
+        int attempts;
+        int depth;
+        long nodes;
+        String line = "";
+
+        Job(char[][] state, String move) {
+            this.state = state;
+            this.move = move;
+        }
+    }
+
+    RootSplitSearch(char[][] position, PlayerStats side, int depth) {
+        this.position = position;
+        this.side = side;
+        this.depth = depth;
+        board = new Board(Math.min(depth, ORDERING_DEPTH), side.getOpponent());
+        board.setVerbose(false);
+        board.updateCurrentState(position);
+    }
+
+    /**
+     * Makes a job of every root move the rules allow, captures only if there is one, best first by a quick search.
+     * Moves that end the game need no worker and are finished straight away.
+     */
+    private void queueJobs() {
+        board.getAIMove();
+        int sign = side == PlayerStats.b ? 1 : -1;
+        ArrayList<BoardAndScore> ordered = new ArrayList<>(board.getSuccessorEvaluations());
+        ordered.sort(Comparator.comparingInt(evaluation -> -evaluation.getScore() * sign));
+        ArrayList<char[][]> moves = board.successorFunction(side, position, board.attackableMovePresent(position, side));
+        ArrayList<Job> queued = new ArrayList<>();
+        for (BoardAndScore evaluation : ordered) {
+            for (char[][] move : moves) {
+                if (Board.sameState(move, evaluation.getState())) queued.add(newJob(move));
+            }
+        }
+        for (char[][] move : moves) {
+            if (queued.stream().noneMatch(job -> Board.sameState(job.state, move))) queued.add(newJob(move));
+        }
+        remaining = new CountDownLatch(queued.size());
+        for (Job job : queued) {
+            boolean won = side == PlayerStats.b ? board.hasBlackWon(job.state) : board.hasWhiteWon(job.state);
+            if (won) {
+                job.score = 1000;
+                finish(job);
+            } else jobs.add(job);
+        }
+    }
+
+    private Job newJob(char[][] move) {
+        return new Job(move, Notation.formatMove(board.findCoordsOfOriginOfMove(position, move, side),
+                board.findCoordsOfResultOfMove(position, move, side)));
+    }
+
+    private void finish(Job job) {
+        synchronized (finished) {
+            finished.add(job);
+            if (!job.upperBound) bestScore = Math.max(bestScore, job.score);
+        }
+        System.out.println("move " + job.move + " score " + job.score + (job.upperBound ? " upperbound" : "")
+                + " depth " + job.depth + " nodes " + job.nodes + " pv " + (job.move + " " + job.line).trim());
+        remaining.countDown();
+    }
+
+    /**
+     * Puts a job a worker couldn't search back at the front of the queue, or gives the search up if it has failed
+     * too often to be worth trying again.
+     * @param job
+     * @param error the worker's reply.
+     */
+    private void retry(Job job, String error) {
+        job.attempts++;
+        if (job.attempts < MAX_ATTEMPTS) jobs.addFirst(job);
+        else failure = "searching " + job.move + " failed " + job.attempts + " times: " + error;
+    }
+
+    /**
+     * Hands jobs to one worker until every root move is finished, then tells it to quit. An idle worker waits in
+     * case another goes away and its job comes back. A job is sent with the null window above the best score so far
+     * unless there isn't one yet, or it failed high in one already.
+     * @param socket
+     */
+    private void serveWorker(Socket socket) {
+        Job job = null;
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(s.getOutputStream(), true)) {
+            while (remaining.getCount() > 0 && failure == null) {
+                job = jobs.poll(1, TimeUnit.SECONDS);
+                if (job == null) continue;
+                int alpha;
+                synchronized (finished) {
+                    alpha = bestScore;
+                }
+                boolean windowed = alpha != Integer.MIN_VALUE && !job.fullWindow;
+                //The worker searches for the opponent, so the root's window (alpha, alpha + 1) is turned round.
+                out.println("search " + Notation.formatPosition(job.state) + " " + side.getOpponent() + " " + (depth - 1)
+                        + (windowed ? " " + (-alpha - 1) + " " + -alpha : ""));
+                String line;
+                while ((line = in.readLine()) != null && !line.startsWith("result") && !line.startsWith("error")) {
+                    String[] tokens = line.split("\\s+");
+                    if (tokens[0].equals("info")) {
+                        //The worker's scores are for the opponent.
+                        System.out.println("info " + job.move + " depth " + tokens[2] + " score " + -Integer.parseInt(tokens[4])
+                                + " nodes " + tokens[6]);
+                    }
+                }
+                if (line == null) break;
+                if (line.startsWith("error")) {
+                    System.err.println("Worker failed on " + job.move + ": " + line);
+                    retry(job, line);
+                    job = null;
+                    continue;
+                }
+                String[] tokens = line.split("\\s+", 9);
+                job.score = -Integer.parseInt(tokens[2]);
+                job.depth = Integer.parseInt(tokens[4]) + 1;
+                job.nodes += Long.parseLong(tokens[6]);
+                job.line = tokens.length > 8 ? tokens[8] : "";
+                if (windowed && job.score > alpha) {
+                    //Better than the best so far, so it needs an exact score.
+                    job.fullWindow = true;
+                    jobs.addFirst(job);
+                } else {
+                    job.upperBound = windowed;
+                    finish(job);
+                }
+                job = null;
+            }
+            out.println("quit");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Lost a worker: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (job != null) jobs.addFirst(job);
+            workers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Waits for the given number of workers on port and shares the root moves out between them.
+     * @param port
+     * @param workerCount
+     * @param spawn whether to start the workers as processes on this machine.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    void search(int port, int workerCount, boolean spawn) throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        queueJobs();
+        ArrayList<Process> processes = new ArrayList<>();
+        try (ServerSocket serverSocket = new ServerSocket(port)) {
+            if (spawn) {
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                for (int i = 0; i < workerCount; i++) {
+                    processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                            SearchWorker.class.getName(), "localhost", Integer.toString(serverSocket.getLocalPort()))
+                            .inheritIO().start());
+                }
+            } else System.out.println("Waiting for " + workerCount + " workers on port " + serverSocket.getLocalPort());
+            for (int i = 0; i < workerCount && remaining.getCount() > 0; i++) {
+                Socket socket = serverSocket.accept();
+                int number = workers.incrementAndGet();
+                Thread thread = new Thread(() -> serveWorker(socket), "worker-" + number);
+                thread.setDaemon(true);
+                thread.start();
+            }
+            //If every worker has gone, nobody is left to finish the jobs.
+            while (!remaining.await(1, TimeUnit.SECONDS)) {
+                if (failure != null) throw new IOException(failure);
+                if (workers.get() == 0) throw new IOException("all workers went away with moves left to search");
+            }
+        } finally {
+            for (Process process : processes) process.destroy();
+        }
+
+        Job best = null;
+        long nodes = 0;
+        for (Job job : finished) {
+            nodes += job.nodes;
+            if (!job.upperBound && (best == null || job.score > best.score)) best = job;
+        }
+        if (best == null) System.out.println("bestmove none");
+        else System.out.println("bestmove " + best.move + " score " + best.score + " nodes " + nodes + " time "
+                + (System.currentTimeMillis() - start));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: RootSplitSearch [position] [b|w] [-depth n] [-workers n] [-port n] [-spawn]");
+            System.exit(1);
+        }
+        int depth = 12;
+        int workerCount = Runtime.getRuntime().availableProcessors();
+        int port = DEFAULT_PORT;
+        boolean spawn = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-depth")) depth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-workers")) workerCount = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-port")) port = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-spawn")) spawn = true;
+        }
+        if (depth < 2) throw new IllegalArgumentException("depth must be at least 2");
+        char[][] position = args[0].equals("startpos") ? Board.initialState() : Notation.parsePosition(args[0]);
+        new RootSplitSearch(position, Notation.parseSide(args[1]), depth).search(port, workerCount, spawn);
+    }
+}
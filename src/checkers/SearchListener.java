@@ -0,0 +1,17 @@
+package checkers;
+
+/**
+ * Receives progress from Board while the AI is thinking, once per completed iteration.
+ */
+interface SearchListener {
+
+    /**
+     * Called after each completed depth of the search.
+     * @param depth the depth that was completed.
+     * @param score the score of the best move, from B's point of view.
+     * @param nodes nodes visited so far this move.
+     * @param millis time spent so far this move.
+     * @param bestMove state representation of the best move at this depth.
+     */
+    void iterationComplete(int depth, int score, long nodes, long millis, char[][] bestMove);
+}
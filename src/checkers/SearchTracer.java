@@ -0,0 +1,180 @@
+package checkers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes every node a Board's search visits to a binary file, for finding out afterwards where the search spent its
+ * time. See TraceReader for summarising a trace.
+ *
+ * The file is a header followed by fixed size records, little endian:
+ *   header  MAGIC, VERSION, RECORD_SIZE, sample, max depth                    (HEADER_SIZE bytes)
+ *   record  key (long), alpha, beta, score, subtree nodes (int), depth, depth left, reason, player (byte)
+ * A node's record is written once its search is over, so records come in post-order, after those of its children.
+ * Alpha and beta are the window the node was searched with, the score is from the point of view of the player to
+ * move and subtree nodes counts the node itself and everything searched below it. An ITERATION record, with only
+ * depth left set, comes before each search of the root.
+ *
+ * To keep the cost down, records are put in a buffer on the search thread, and full buffers are written to the file
+ * on a background thread. A few buffers are reused between the two, so if the disk can't keep up the search waits
+ * rather than memory growing. Only nodes down to maxDepth plies from the root are traced, and of those only the ones
+ * whose key is a multiple of sample, which picks the same positions every time and keeps the proportions of each ply.
+ *
+ * A tracer belongs to one board, and so to one search thread.
+ */
+class SearchTracer implements AutoCloseable {
+
+    static final int MAGIC = 0x43484b54; // "CHKT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int RECORD_SIZE = 28;
+
+    // Why a node's search ended.
+    static final byte EXACT = 0; // Every child searched, the score inside the window.
+    static final byte FAIL_HIGH = 1; // A beta cutoff.
+    static final byte FAIL_LOW = 2; // Every child searched, none reaching alpha.
+    static final byte TABLE = 3; // Answered by the transposition table.
+    static final byte DRAW = 4; // A repetition or too long without progress.
+    static final byte LEAF = 5; // Evaluated at the end of the search depth.
+    static final byte WON = 6; // One side has no pieces or moves left.
+    static final byte ABORTED = 7; // Out of time or stopped, the score is thrown away.
+    static final byte ITERATION = 8; // Marks the start of a search of the root.
+
+    private static final int BUFFER_SIZE = RECORD_SIZE * 4096;
+    private static final int BUFFERS = 4;
+
+    private final FileChannel channel;
+    private final int sample;
+    private final int maxDepth;
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(BUFFERS + 1);
+    private final ByteBuffer end = ByteBuffer.allocate(0); // Tells the writer to stop.
+    private final Thread writer;
+    private ByteBuffer buffer;
+    private volatile IOException failure;
+
+    /**
+     * Creates or overwrites a trace file.
+     * @param path
+     * @param sample trace 1 in this many nodes, 1 for every node.
+     * @param maxDepth the deepest ply from the root traced.
+     * @throws IOException
+     */
+    SearchTracer(Path path, int sample, int maxDepth) throws IOException {
+        if (sample < 1) throw new IllegalArgumentException("sample " + sample);
+        this.sample = sample;
+        this.maxDepth = maxDepth;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(sample).putInt(maxDepth).flip();
+        while (header.hasRemaining()) channel.write(header);
+        for (int i = 0; i < BUFFERS; i++) free.add(ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+        buffer = free.poll();
+        writer = new Thread(this::writeBuffers, "search-tracer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Whether nodes this many plies from the root are traced at all, so the caller can skip the bookkeeping.
+     * @param depth
+     * @return boolean
+     */
+    boolean traces(int depth) {
+        return depth <= maxDepth;
+    }
+
+    /**
+     * Marks the start of a search of the root.
+     * @param depthLeft the iteration's depth.
+     */
+    void beginIteration(int depthLeft) {
+        put(0, 0, 0, 0, 0, 0, depthLeft, ITERATION, PlayerStats.b);
+    }
+
+    /**
+     * Records a node once its search is over, if it is traced.
+     * @param key
+     * @param depth plies from the root.
+     * @param depthLeft
+     * @param alpha
+     * @param beta
+     * @param score
+     * @param subtreeNodes
+     * @param reason one of EXACT to ABORTED.
+     * @param player the player to move.
+     */
+    void record(long key, int depth, int depthLeft, int alpha, int beta, int score, long subtreeNodes, byte reason,
+                PlayerStats player) {
+        if (depth > maxDepth || (key & Long.MAX_VALUE) % sample != 0) return;
+        put(key, alpha, beta, score, (int) Math.min(subtreeNodes, Integer.MAX_VALUE), depth, depthLeft, reason, player);
+    }
+
+    private void put(long key, int alpha, int beta, int score, int subtreeNodes, int depth, int depthLeft, byte reason,
+                     PlayerStats player) {
+        if (buffer.remaining() < RECORD_SIZE) hand(buffer);
+        buffer.putLong(key).putInt(alpha).putInt(beta).putInt(score).putInt(subtreeNodes)
+                .put((byte) depth).put((byte) Math.max(Byte.MIN_VALUE, depthLeft)).put(reason)
+                .put((byte) (player == PlayerStats.b ? 0 : 1));
+    }
+
+    /**
+     * Gives a buffer to the writer and takes a free one, waiting for the writer if none are free.
+     * @param toWrite
+     */
+    private void hand(ByteBuffer toWrite) {
+        toWrite.flip();
+        try {
+            full.put(toWrite);
+            buffer = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while tracing", e);
+        }
+    }
+
+    /**
+     * The writer thread's loop: writes each full buffer to the file and gives it back.
+     */
+    private void writeBuffers() {
+        try {
+            while (true) {
+                ByteBuffer toWrite = full.take();
+                if (toWrite == end) return;
+                try {
+                    while (toWrite.hasRemaining()) channel.write(toWrite);
+                } catch (IOException e) {
+                    //Keep taking buffers so the search never waits on a broken file, the error is reported by close.
+                    if (failure == null) failure = e;
+                }
+                toWrite.clear();
+                free.put(toWrite);
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * Writes out what's left and closes the file.
+     * @throws IOException if anything couldn't be written.
+     */
+    @Override
+    public void close() throws IOException {
+        hand(buffer);
+        try {
+            full.put(end);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,115 @@
+package checkers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Searches positions for a RootSplitSearch. The worker connects to the coordinator, which may be on another machine,
+ * and is sent one position at a time over a line protocol:
+ *   search [position] [b|w] [depth] [alpha beta]
+ *                                     search the position for the side to move, replying "info depth [d] score [s]
+ *                                     nodes [n]" after each iteration and "result score [s] depth [d] nodes [n] pv
+ *                                     [moves..]" at the end, or "error [message]" if it can't. Given a window, a
+ *                                     score at or below alpha is only an upper bound, and at or above beta a lower one
+ *   stop                              finish the search in progress with its deepest completed iteration
+ *   quit
+ * Scores are from the side to move's point of view. As in Engine, commands are read while the search runs on its own
+ * thread, and the transposition table is kept from one position to the next.
+ *
+ * Usage: SearchWorker [host] [port]
+ */
+public class SearchWorker {
+
+    private final PrintWriter out;
+    private final Board board;
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "worker-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    SearchWorker(PrintWriter out) {
+        this.out = out;
+        board = new Board(1, PlayerStats.w);
+        board.setVerbose(false);
+        board.setTranspositionTable(new TranspositionTable(22));
+    }
+
+    /**
+     * Answers the coordinator until it sends "quit" or goes away.
+     * @param in
+     * @throws IOException
+     */
+    void run(BufferedReader in) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].equals("quit")) break;
+            try {
+                if (tokens[0].equals("search")) search(tokens);
+                else if (tokens[0].equals("stop")) board.stopSearch();
+                else send("error unknown command " + tokens[0]);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                send("error " + line);
+            }
+        }
+        board.stopSearch();
+        searchThread.shutdown();
+        try {
+            searchThread.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void search(String[] tokens) {
+        char[][] position = Notation.parsePosition(tokens[1]);
+        PlayerStats side = Notation.parseSide(tokens[2]);
+        int depth = Integer.parseInt(tokens[3]);
+        boolean windowed = tokens.length > 5;
+        int alpha = windowed ? Integer.parseInt(tokens[4]) : 0;
+        int beta = windowed ? Integer.parseInt(tokens[5]) : 0;
+        searchThread.execute(() -> {
+            try {
+                board.setAiPlayer(side);
+                board.setDifficulty(depth);
+                if (windowed) board.setRootWindow(alpha, beta);
+                else board.clearRootWindow();
+                board.updateCurrentState(position);
+                int sign = side == PlayerStats.b ? 1 : -1;
+                board.setSearchListener((d, score, nodes, millis, best) ->
+                        send("info depth " + d + " score " + score * sign + " nodes " + nodes));
+                board.getAIMove();
+                send("result score " + board.getBestScore() * sign + " depth " + board.getDepthReached() + " nodes "
+                        + board.getNodes() + " pv " + board.describeLine(position, board.getPrincipalVariation(), side));
+            } catch (RuntimeException e) {
+                //Otherwise the coordinator would wait for a result forever.
+                send("error " + e);
+            }
+        });
+    }
+
+    private void send(String message) {
+        synchronized (out) {
+            out.println(message);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SearchWorker [host] [port]");
+            System.exit(1);
+        }
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]));
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true)) {
+            new SearchWorker(out).run(in);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package checkers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Plays the AI against itself to make training positions for NeuralTrainer. The first few plies of each game are
+ * random, so games don't all follow the same line. Every position at the start of a turn is written with the score
+ * the search gave it and how the game ended, tab separated:
+ *   position  side to move  search score  result
+ * Scores and results are from B's point of view, the result being 1 for a B win, -1 for a W win and 0 for a draw or
+ * a game stopped at the ply limit.
+ *
+ * Usage: SelfPlay [output] [-games n] [-depth n] [-random plies] [-seed n]
+ */
+public class SelfPlay {
+
+    private static final int MAX_PLIES = 200;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SelfPlay [output] [-games n] [-depth n] [-random plies] [-seed n]");
+            System.exit(1);
+        }
+        int games = 100;
+        int depth = 6;
+        int randomPlies = 6;
+        long seed = System.currentTimeMillis();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-games")) games = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-depth")) depth = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-random")) randomPlies = Integer.parseInt(args[++i]);
+            else if (args[i].equals("-seed")) seed = Long.parseLong(args[++i]);
+        }
+        Random random = new Random(seed);
+        TranspositionTable transpositionTable = new TranspositionTable(20);
+        try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+            for (int game = 0; game < games; game++) {
+                transpositionTable.clear();
+                int written = playGame(depth, randomPlies, random, transpositionTable, out);
+                System.out.println("Game " + (game + 1) + ": " + written + " positions");
+            }
+        }
+    }
+
+    /**
+     * Plays one game and writes its positions.
+     * @return how many positions were written.
+     */
+    private static int playGame(int depth, int randomPlies, Random random, TranspositionTable transpositionTable,
+                                BufferedWriter out) throws IOException {
+        Board board = new Board(depth, PlayerStats.w);
+        board.setVerbose(false);
+        board.setTranspositionTable(transpositionTable);
+        ArrayList<String> samples = new ArrayList<>();
+        PlayerStats side = PlayerStats.b;
+        int result = 0;
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            if (board.hasBlackWon(board.getBoard())) {
+                result = 1;
+                break;
+            }
+            if (board.hasWhiteWon(board.getBoard())) {
+                result = -1;
+                break;
+            }
+            if (board.isDraw()) break;
+            board.setAiPlayer(side);
+            boolean mustAttack = board.attackableMovePresent(board.getBoard(), side);
+            if (ply < randomPlies && !mustAttack) {
+                ArrayList<char[][]> moves = board.successorFunction(side, board.getBoard(), false);
+                board.updateCurrentState(moves.get(random.nextInt(moves.size())));
+                board.updateBoardForNewKings();
+            } else {
+                char[][] start = board.getBoard();
+                int score = playTurn(board, side);
+                samples.add(Notation.formatPosition(start) + "\t" + side + "\t" + score);
+            }
+            side = side.getOpponent();
+            board.recordPosition(side);
+        }
+        for (String sample : samples) {
+            out.write(sample + "\t" + result);
+            out.newLine();
+        }
+        return samples.size();
+    }
+
+    /**
+     * Plays every hop of one side's turn, following the same rules as GameSession.aiTurn.
+     * @param board
+     * @param side
+     * @return the score the search gave the first hop, from B's point of view.
+     */
+    private static int playTurn(Board board, PlayerStats side) {
+        int[] from = null;
+        int score = 0;
+        boolean first = true;
+        do {
+            char[][] before = board.getBoard();
+            char[][] best = board.getAIMoveFollowingRules(from);
+            if (best == null) break;
+            if (first) score = board.getBestScore();
+            first = false;
+            boolean attacked = board.countPlayerTokens(best, side.getOpponent(), false, false)
+                    < board.countPlayerTokens(before, side.getOpponent(), false, false);
+            board.updateCurrentState(best);
+            board.updateBoardForNewKings();
+            from = null;
+            if (attacked) {
+                int[] destination = board.findCoordsOfResultOfMove(before, best, side);
+                if (board.attackableMovePresent(board.getBoard(), side,
+                        Character.isUpperCase(board.getBoard()[destination[1]][destination[0]]), destination[0], destination[1])) {
+                    from = destination;
+                }
+            }
+        } while (from != null);
+        return score;
+    }
+}
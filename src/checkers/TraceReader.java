@@ -0,0 +1,158 @@
+package checkers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Summarises a trace written by SearchTracer. For each ply it prints how many nodes were traced, how their searches
+ * ended and the effective branching factor, i.e. nodes on the next ply per node on this ply that was searched through.
+ * It then lists the most expensive subtrees below the root, by how many nodes they took.
+ *
+ * With a sampled trace the counts are of the sampled nodes only, but the branching factors and subtree sizes are
+ * still true to the whole search.
+ *
+ * Usage: TraceReader [trace] [-top n]
+ */
+public class TraceReader {
+
+    private static final String[] REASONS = {"exact", "high", "low", "table", "draw", "leaf", "won", "aborted"};
+
+    private long[][] reasonCounts = new long[0][]; // By ply, then reason.
+    private long[] subtreeNodes = new long[0]; // By ply.
+    private final PriorityQueue<Record> expensive = new PriorityQueue<>(Comparator.comparingInt(record -> record.subtreeNodes));
+    private final int top;
+    private long records;
+    private int iterations;
+
+    TraceReader(int top) {
+        this.top = top;
+    }
+
+    /**
+     * One traced node.
+     */
+    private static final class Record {
+        final long key;
+        final int alpha;
+        final int beta;
+        final int score;
+        final int subtreeNodes;
+        final int depth;
+        final int depthLeft;
+        final int reason;
+
+        Record(ByteBuffer buffer) {
+            key = buffer.getLong();
+            alpha = buffer.getInt();
+            beta = buffer.getInt();
+            score = buffer.getInt();
+            subtreeNodes = buffer.getInt();
+            depth = buffer.get();
+            depthLeft = buffer.get();
+            reason = buffer.get();
+            buffer.get(); // The player to move, not needed for the summary.
+        }
+    }
+
+    private void add(Record record) {
+        records++;
+        if (record.reason == SearchTracer.ITERATION) {
+            iterations++;
+            return;
+        }
+        if (record.depth >= subtreeNodes.length) {
+            int plies = record.depth + 1;
+            long[][] counts = new long[plies][];
+            for (int i = 0; i < plies; i++) counts[i] = i < reasonCounts.length ? reasonCounts[i] : new long[REASONS.length];
+            reasonCounts = counts;
+            long[] sizes = new long[plies];
+            System.arraycopy(subtreeNodes, 0, sizes, 0, subtreeNodes.length);
+            subtreeNodes = sizes;
+        }
+        reasonCounts[record.depth][record.reason]++;
+        subtreeNodes[record.depth] += record.subtreeNodes;
+        if (record.depth > 0 && record.reason != SearchTracer.ABORTED) {
+            expensive.add(record);
+            if (expensive.size() > top) expensive.poll();
+        }
+    }
+
+    /**
+     * Reads every record of a trace.
+     * @param path
+     * @throws IOException if the file isn't a trace.
+     */
+    void read(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+            ByteBuffer header = ByteBuffer.allocate(SearchTracer.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header);
+            header.flip();
+            if (header.remaining() < SearchTracer.HEADER_SIZE || header.getInt() != SearchTracer.MAGIC
+                    || header.getInt() != SearchTracer.VERSION || header.getInt() != SearchTracer.RECORD_SIZE) {
+                throw new IOException(path + " is not a search trace");
+            }
+            System.out.println("Sample 1 in " + header.getInt() + ", plies 0-" + header.getInt());
+            ByteBuffer buffer = ByteBuffer.allocateDirect(SearchTracer.RECORD_SIZE * 8192).order(ByteOrder.LITTLE_ENDIAN);
+            //Records can straddle two reads, so what's left of one is kept for the next.
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.remaining() >= SearchTracer.RECORD_SIZE) add(new Record(buffer));
+                buffer.compact();
+            }
+        }
+    }
+
+    void printSummary() {
+        System.out.println(records + " records, " + iterations + " root searches");
+        StringBuilder heading = new StringBuilder("ply        nodes   branching   avg subtree");
+        for (String reason : REASONS) heading.append(String.format(" %9s", reason));
+        System.out.println(heading);
+        for (int ply = 0; ply < reasonCounts.length; ply++) {
+            long[] counts = reasonCounts[ply];
+            long total = 0;
+            for (long count : counts) total += count;
+            long searched = counts[SearchTracer.EXACT] + counts[SearchTracer.FAIL_HIGH] + counts[SearchTracer.FAIL_LOW];
+            String branching = "-";
+            if (ply + 1 < reasonCounts.length && searched > 0) {
+                long next = 0;
+                for (long count : reasonCounts[ply + 1]) next += count;
+                branching = String.format("%.2f", (double) next / searched);
+            }
+            StringBuilder line = new StringBuilder(String.format("%3d %12d %11s %13.1f", ply, total, branching,
+                    total == 0 ? 0.0 : (double) subtreeNodes[ply] / total));
+            for (long count : counts) line.append(String.format(" %9d", count));
+            System.out.println(line);
+        }
+
+        ArrayList<Record> largest = new ArrayList<>(expensive);
+        largest.sort(Comparator.comparingInt((Record record) -> record.subtreeNodes).reversed());
+        System.out.println();
+        System.out.println("Most expensive subtrees:");
+        System.out.println("         nodes  ply  left  reason       alpha       beta      score  key");
+        for (Record record : largest) {
+            System.out.println(String.format("%14d %4d %5d  %-7s %11d %10d %10d  %016x", record.subtreeNodes,
+                    record.depth, record.depthLeft, REASONS[record.reason], record.alpha, record.beta, record.score,
+                    record.key));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TraceReader [trace] [-top n]");
+            System.exit(1);
+        }
+        int top = 20;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("-top")) top = Integer.parseInt(args[++i]);
+        }
+        TraceReader reader = new TraceReader(top);
+        reader.read(args[0]);
+        reader.printSummary();
+    }
+}
@@ -0,0 +1,198 @@
+package checkers;
+
+import java.util.Random;
+
+/**
+ * Remembers the scores of positions minimaxAB has already searched, so a position reached through a different order
+ * of moves, or searched again on the next iteration, does not have to be searched again. Entries are immutable and
+ * replaced whole, so one table can be shared by boards searching on different threads.
+ *
+ * Turning the board round 180 degrees and swapping the colours gives a position the other player is in exactly the
+ * same situation in, W's pieces moving down the board as B's moved up. With the other player to move it has the same
+ * score for the player to move, so a position and its mirror image share an entry under the canonical key, see keys.
+ * That only holds for an evaluator that scores both colours alike, see Evaluator.isColourSymmetric. Otherwise the
+ * search keys the table by the exact key.
+ */
+class TranspositionTable {
+
+    static final byte EXACT = 0; // The score is the minimax value.
+    static final byte LOWER = 1; // The search failed high, the value is at least the score.
+    static final byte UPPER = 2; // The search failed low, the value is at most the score.
+
+    private static final long[][] PIECE_KEYS = new long[100][4]; // By tile y * size + x, for boards up to 10x10.
+    private static final long[][] MIRRORED_KEYS = new long[64][4]; // The key of each piece's mirror image on 8x8.
+    private static final long WHITE_TO_MOVE;
+
+    static {
+        Random random = new Random(2018);
+        //The 8x8 tiles' keys come first, as they always have, so keys kept in an AnalysisCache stay the same.
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 4; i++) PIECE_KEYS[square][i] = random.nextLong();
+        }
+        WHITE_TO_MOVE = random.nextLong();
+        for (int square = 64; square < PIECE_KEYS.length; square++) {
+            for (int i = 0; i < 4; i++) PIECE_KEYS[square][i] = random.nextLong();
+        }
+        //Swapping bit 1 of a piece index swaps b and w, and B and W.
+        for (int square = 0; square < 64; square++) {
+            for (int i = 0; i < 4; i++) MIRRORED_KEYS[square][i] = PIECE_KEYS[63 - square][i ^ 2];
+        }
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+
+    /**
+     * @param sizeBits the table holds 2^sizeBits entries.
+     */
+    TranspositionTable(int sizeBits) {
+        entries = new Entry[1 << sizeBits];
+        mask = entries.length - 1;
+    }
+
+    /**
+     * Zobrist key of a state with the given player to move.
+     * @param node
+     * @param toMove
+     * @return long key.
+     */
+    static long key(char[][] node, PlayerStats toMove) {
+        //Only the dark squares, x + y odd, are played on.
+        int size = node.length;
+        long key = toMove == PlayerStats.w ? WHITE_TO_MOVE : 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = (y + 1) % 2; x < size; x += 2) {
+                int piece = pieceIndex(node[y][x]);
+                if (piece >= 0) key ^= PIECE_KEYS[y * size + x][piece];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Works out the key of a state and its canonical key together, in one pass over the board. The canonical key is
+     * the same for a state and its mirror image, turned round 180 degrees with the colours swapped and the other
+     * player to move: whichever of their two keys is smaller. Scores for the player to move carry over from one to
+     * the other unchanged, moves have to be turned round with mirrorSquare or mirrorMove.
+     * @param node
+     * @param toMove
+     * @param keys filled with the key at 0 and the canonical key at 1.
+     */
+    static void keys(char[][] node, PlayerStats toMove, long[] keys) {
+        if (node.length != 8) {
+            largeBoardKeys(node, toMove, keys);
+            return;
+        }
+        long key = toMove == PlayerStats.w ? WHITE_TO_MOVE : 0;
+        long mirrored = key ^ WHITE_TO_MOVE;
+        for (int y = 0; y < 8; y++) {
+            for (int x = (y + 1) % 2; x < 8; x += 2) {
+                int piece = pieceIndex(node[y][x]);
+                if (piece < 0) continue;
+                key ^= PIECE_KEYS[y * 8 + x][piece];
+                mirrored ^= MIRRORED_KEYS[y * 8 + x][piece];
+            }
+        }
+        keys[0] = key;
+        keys[1] = Math.min(key, mirrored);
+    }
+
+    /**
+     * keys for boards larger than 8x8, which have no table of mirrored keys.
+     * @param node
+     * @param toMove
+     * @param keys
+     */
+    private static void largeBoardKeys(char[][] node, PlayerStats toMove, long[] keys) {
+        int size = node.length;
+        int last = size * size - 1;
+        long key = toMove == PlayerStats.w ? WHITE_TO_MOVE : 0;
+        long mirrored = key ^ WHITE_TO_MOVE;
+        for (int y = 0; y < size; y++) {
+            for (int x = (y + 1) % 2; x < size; x += 2) {
+                int piece = pieceIndex(node[y][x]);
+                if (piece < 0) continue;
+                key ^= PIECE_KEYS[y * size + x][piece];
+                mirrored ^= PIECE_KEYS[last - y * size - x][piece ^ 2];
+            }
+        }
+        keys[0] = key;
+        keys[1] = Math.min(key, mirrored);
+    }
+
+    /**
+     * Where a square is on the mirrored 8x8 board.
+     * @param square co-ordinates (x,y).
+     * @return int[] co-ordinates (x,y).
+     */
+    static int[] mirrorSquare(int[] square) {
+        return new int[]{7 - square[0], 7 - square[1]};
+    }
+
+    /**
+     * A move turned round for the mirrored board, see Board.encodeHop.
+     * @param move
+     * @return int move, or -1 if move is -1.
+     */
+    static int mirrorMove(int move) {
+        //Square y * 8 + x becomes (7 - y) * 8 + 7 - x.
+        return move < 0 ? move : (63 - (move >> 6)) * 64 + 63 - (move & 63);
+    }
+
+    private static int pieceIndex(char tile) {
+        switch (tile) {
+            case 'b': return 0;
+            case 'B': return 1;
+            case 'w': return 2;
+            case 'W': return 3;
+            default: return -1;
+        }
+    }
+
+    /**
+     * @param key
+     * @return the entry stored for this key, or null.
+     */
+    Entry probe(long key) {
+        Entry entry = entries[(int) key & mask];
+        return entry != null && entry.key == key ? entry : null;
+    }
+
+    /**
+     * Stores a result, unless the same position is already stored from a deeper search.
+     * @param key
+     * @param depth the remaining depth the position was searched to.
+     * @param score
+     * @param flag EXACT, LOWER or UPPER.
+     * @param move the best move found, see Board.encodeHop, or -1 to keep the one already stored for the position.
+     */
+    void store(long key, int depth, int score, byte flag, int move) {
+        int index = (int) key & mask;
+        Entry old = entries[index];
+        if (old != null && old.key == key) {
+            if (old.depth > depth) return;
+            if (move < 0) move = old.move;
+        }
+        entries[index] = new Entry(key, depth, score, flag, (short) move);
+    }
+
+    void clear() {
+        for (int i = 0; i < entries.length; i++) entries[i] = null;
+    }
+
+    static final class Entry {
+        final long key;
+        final int depth;
+        final int score;
+        final byte flag;
+        final short move; // The move to try first, see Board.encodeHop, or -1.
+
+        private Entry(long key, int depth, int score, byte flag, short move) {
+            this.key = key;
+            this.depth = depth;
+            this.score = score;
+            this.flag = flag;
+            this.move = move;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package checkers;
+
+/**
+ * The variants of draughts the AI plays, each with its own board and rules. The search and the evaluation are the
+ * same for every variant, only how the moves are made differs.
+ *   ENGLISH        8x8, 3 rows of pieces each. Pawns only take forwards, kings move one square, and any attack may
+ *                  be chosen. The search's moves are single hops, each jump of a multi-jump a move of its own, with
+ *                  the GUI making the player carry on.
+ *   INTERNATIONAL  10x10, 4 rows of pieces each. Pawns take backwards as well as forwards, kings fly, moving and
+ *                  taking any distance along a diagonal, and of the captures available one taking the most pieces
+ *                  has to be played. Which captures are allowed depends on how far they go, so the search's moves are
+ *                  whole turns, see MoveGenerator.
+ *
+ * The playable squares are numbered from 0, left to right along each row from y = 0 down, which makes square n the
+ * usual square n + 1 of the international board. For MoveGenerator each also has a bit in a 64 bit mask: its square
+ * number with a spare bit left after every second row. With the spare bits a step along a diagonal is the same shift
+ * from every square, and a step off the left or right edge lands on a spare bit, which is never on the board.
+ */
+enum Variant {
+
+    ENGLISH(8, 3, false, false, false, false),
+    INTERNATIONAL(10, 4, true, true, true, true);
+
+    final int size; // Tiles along each side of the board.
+    final int rows; // Rows of pieces each player starts with.
+    final boolean pawnsTakeBackwards;
+    final boolean flyingKings;
+    final boolean majorityCapture; // Whether a capture has to take as many pieces as the longest one available.
+    final boolean wholeMoves; // Whether the search's moves are whole turns rather than single hops.
+    final int squares; // How many squares are played on.
+    final long board; // The bits of every playable square.
+
+    Variant(int size, int rows, boolean pawnsTakeBackwards, boolean flyingKings, boolean majorityCapture,
+            boolean wholeMoves) {
+        this.size = size;
+        this.rows = rows;
+        this.pawnsTakeBackwards = pawnsTakeBackwards;
+        this.flyingKings = flyingKings;
+        this.majorityCapture = majorityCapture;
+        this.wholeMoves = wholeMoves;
+        squares = size * size / 2;
+        long mask = 0;
+        for (int square = 0; square < squares; square++) mask |= 1L << bit(square);
+        board = mask;
+    }
+
+    /**
+     * The variant played on a board of the given size.
+     * @param size
+     * @return Variant
+     * @throws IllegalArgumentException if no variant is played on it.
+     */
+    static Variant forSize(int size) {
+        for (Variant variant : values()) {
+            if (variant.size == size) return variant;
+        }
+        throw new IllegalArgumentException("No variant is played on a " + size + "x" + size + " board");
+    }
+
+    /**
+     * The variant a state is a position of, going by its size.
+     * @param state
+     * @return Variant
+     */
+    static Variant of(char[][] state) {
+        return forSize(state.length);
+    }
+
+    /**
+     * Returns a new copy of the starting position.
+     * @return char[][] initial state representation.
+     */
+    char[][] initialState() {
+        char[][] state = new char[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                //Only the dark squares, x + y odd, are played on.
+                if ((x + y) % 2 == 0) state[y][x] = 'X';
+                else if (y < rows) state[y][x] = PlayerStats.w.getPawnChar();
+                else if (y >= size - rows) state[y][x] = PlayerStats.b.getPawnChar();
+                else state[y][x] = 'O';
+            }
+        }
+        return state;
+    }
+
+    /**
+     * The row the player starts on, as PlayerStats.getKingsRow is for 8x8. Pawns are made kings on their opponent's.
+     * @param player
+     * @return int row.
+     */
+    int kingsRow(PlayerStats player) {
+        return player == PlayerStats.b ? size - 1 : 0;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return the number of the square at (x,y), or -1 if it isn't played on.
+     */
+    int square(int x, int y) {
+        if (x < 0 || x >= size || y < 0 || y >= size || (x + y) % 2 == 0) return -1;
+        return y * (size / 2) + x / 2;
+    }
+
+    int x(int square) {
+        int y = y(square);
+        return square % (size / 2) * 2 + (y % 2 == 0 ? 1 : 0);
+    }
+
+    int y(int square) {
+        return square / (size / 2);
+    }
+
+    /**
+     * @param square
+     * @return int the square's bit in a mask.
+     */
+    int bit(int square) {
+        return square + square / size;
+    }
+
+    /**
+     * How far a step along a diagonal moves a square's bit.
+     * @param dx -1 or 1
+     * @param dy -1 or 1
+     * @return int offset, added to the bit.
+     */
+    int step(int dx, int dy) {
+        int half = size / 2;
+        return dy > 0 ? half + (dx > 0 ? 1 : 0) : -half - (dx < 0 ? 1 : 0);
+    }
+}